@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+
+/**
+ * Benchmarks of the <code>owners</code> and <code>vets</code> caches with the default
+ * heap-only configuration and with the <code>cache-tiered</code> profile, which loads
+ * <code>ehcache-tiered.xml</code>. The owners are read at random, so most of them do not
+ * fit in the 1000 heap entries of either configuration: the default one goes back to the
+ * database, the tiered one reads them from off-heap memory. Run them with the JMH GC
+ * profiler to also compare the allocation rate and time spent in garbage collection:
+ *
+ * <pre class="code">
+ * ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.args="CacheTierBenchmarks -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class CacheTierBenchmarks {
+
+	@Benchmark
+	public Owner findById(CacheState state) {
+		return state.context.getBean(OwnerRepository.class).findById(state.randomOwnerId());
+	}
+
+	@Benchmark
+	public Collection<Vet> findAllVets(CacheState state) {
+		return state.context.getBean(VetRepository.class).findAll();
+	}
+
+	@State(Scope.Benchmark)
+	public static class CacheState {
+
+		@Param({ "default", "cache-tiered" })
+		public String cache;
+
+		@Param({ "100000" })
+		public int owners;
+
+		ConfigurableApplicationContext context;
+
+		int[] ownerIds;
+
+		@Setup(Level.Trial)
+		public void start() {
+			this.context = ClinicState.run(this.owners,
+					"default".equals(this.cache) ? "generate" : "generate," + this.cache);
+			List<Integer> ids = this.context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM owners",
+					Integer.class);
+			this.ownerIds = ids.stream().mapToInt(Integer::intValue).toArray();
+			// fill the caches before measuring
+			OwnerRepository owners = this.context.getBean(OwnerRepository.class);
+			for (int id : this.ownerIds) {
+				owners.findById(id);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void stop() {
+			this.context.close();
+		}
+
+		int randomOwnerId() {
+			return this.ownerIds[ThreadLocalRandom.current().nextInt(this.ownerIds.length)];
+		}
+
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.system.DataGenerator;
+
+/**
+ * Benchmark state holding a running PetClinic application backed by an in-memory H2
+ * database, to which the {@link DataGenerator} adds the given number of owners with
+ * their pets and visits.
+ */
+@State(Scope.Benchmark)
+public class ClinicState {
+
+	/**
+	 * The most common last name of the generated owners.
+	 */
+	static final String LAST_NAME = DataGenerator.LAST_NAMES[0];
+
+	@Param({ "100", "10000", "100000" })
+	public int owners;
+
+	ConfigurableApplicationContext context;
+
+	/**
+	 * Id of the owner with the most pets, used for the single-owner lookups.
+	 */
+	int ownerId;
+
+	/**
+	 * Id of the pet with the most visits.
+	 */
+	int petId;
+
+	@Setup(Level.Trial)
+	public void start() {
+		this.context = run(this.owners, "generate");
+		JdbcTemplate jdbc = this.context.getBean(JdbcTemplate.class);
+		this.ownerId = jdbc.queryForObject(
+				"SELECT owner_id FROM pets GROUP BY owner_id ORDER BY COUNT(*) DESC, owner_id LIMIT 1", Integer.class);
+		this.petId = jdbc.queryForObject(
+				"SELECT pet_id FROM visits GROUP BY pet_id ORDER BY COUNT(*) DESC, pet_id LIMIT 1", Integer.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		this.context.close();
+	}
+
+	/**
+	 * Start the application with the given number of generated owners.
+	 * @param owners the number of owners to generate
+	 * @param profiles the profiles to activate, including <code>generate</code>
+	 * @return the application context
+	 */
+	static ConfigurableApplicationContext run(int owners, String profiles) {
+		return SpringApplication.run(PetClinicApplication.class, "--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:benchmark", "--spring.profiles.active=" + profiles,
+				"--petclinic.generator.owners=" + owners, "--logging.level.root=WARN",
+				"--logging.level.org.springframework=WARN");
+	}
+
+	<T> T getBean(Class<T> type) {
+		return this.context.getBean(type);
+	}
+
+}
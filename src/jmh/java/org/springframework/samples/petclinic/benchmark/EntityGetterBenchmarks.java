@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.visit.Visit;
+
+/**
+ * Benchmarks of the sorted collection getters of {@link Owner}, {@link Pet} and
+ * {@link Vet}, called as often as a page render does. The <code>reflective*</code>
+ * benchmarks sort a copy with {@link PropertyComparator} on every call, as the getters
+ * used to, for comparison. Run with <code>-Djmh.args="EntityGetterBenchmarks -prof
+ * gc"</code> to see the allocation rate as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityGetterBenchmarks {
+
+	/**
+	 * Number of times a page reads each collection.
+	 */
+	private static final int READS = 10;
+
+	@Param({ "10", "200" })
+	public int children;
+
+	private Owner owner;
+
+	private Pet pet;
+
+	private Vet vet;
+
+	@Setup
+	public void setup() {
+		this.owner = new Owner();
+		this.pet = new Pet();
+		this.pet.setId(1);
+		this.vet = new Vet();
+		for (int i = 0; i < this.children; i++) {
+			Pet child = new Pet();
+			child.setName("pet" + ((i * 7919) % this.children));
+			this.owner.addPet(child);
+			Visit visit = new Visit();
+			visit.setDate(LocalDate.of(2020, 1, 1).plusDays((i * 7919) % this.children));
+			this.pet.addVisit(visit);
+			Specialty specialty = new Specialty();
+			specialty.setName("specialty" + ((i * 7919) % this.children));
+			this.vet.addSpecialty(specialty);
+		}
+	}
+
+	@Benchmark
+	public void getPets(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(this.owner.getPets());
+		}
+	}
+
+	@Benchmark
+	public void reflectiveGetPets(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(reflectiveSort(this.owner.getPets(), "name", true, true));
+		}
+	}
+
+	@Benchmark
+	public void getVisits(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(this.pet.getVisits());
+		}
+	}
+
+	@Benchmark
+	public void reflectiveGetVisits(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(reflectiveSort(this.pet.getVisits(), "date", false, false));
+		}
+	}
+
+	@Benchmark
+	public void getSpecialties(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(this.vet.getSpecialties());
+		}
+	}
+
+	@Benchmark
+	public void reflectiveGetSpecialties(Blackhole blackhole) {
+		for (int i = 0; i < READS; i++) {
+			blackhole.consume(reflectiveSort(this.vet.getSpecialties(), "name", true, true));
+		}
+	}
+
+	private static <T> List<T> reflectiveSort(List<T> source, String property, boolean ignoreCase,
+			boolean ascending) {
+		List<T> sorted = new ArrayList<>(source);
+		PropertyComparator.sort(sorted, new MutableSortDefinition(property, ignoreCase, ascending));
+		return Collections.unmodifiableList(sorted);
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+
+/**
+ * Benchmarks of the repository methods on the request hot paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmarks {
+
+	@Benchmark
+	public Collection<Owner> findByLastName(ClinicState state) {
+		return state.getBean(OwnerRepository.class).findByLastName(ClinicState.LAST_NAME);
+	}
+
+	@Benchmark
+	public List<Integer> findIdsByLastName(ClinicState state) {
+		return state.getBean(OwnerRepository.class).findIdsByLastName(ClinicState.LAST_NAME,
+				PageRequest.of(0, 21));
+	}
+
+	@Benchmark
+	public Owner findById(ClinicState state) {
+		OwnerRepository owners = state.getBean(OwnerRepository.class);
+		state.getBean(CacheManager.class).getCache("owners").clear();
+		return owners.findById(state.ownerId);
+	}
+
+	@Benchmark
+	public Owner findByIdCached(ClinicState state) {
+		return state.getBean(OwnerRepository.class).findById(state.ownerId);
+	}
+
+	@Benchmark
+	public List<Visit> findVisitsByPetId(ClinicState state) {
+		return state.getBean(VisitRepository.class).findByPetId(state.petId);
+	}
+
+	@Benchmark
+	public Collection<Vet> findAllVets(ClinicState state) {
+		VetRepository vets = state.getBean(VetRepository.class);
+		state.getBean(CacheManager.class).getCache("vets").clear();
+		return vets.findAll();
+	}
+
+	@Benchmark
+	public Collection<Vet> findAllVetsCached(ClinicState state) {
+		return state.getBean(VetRepository.class).findAll();
+	}
+
+}
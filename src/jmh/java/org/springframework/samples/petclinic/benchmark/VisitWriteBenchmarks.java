@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+
+/**
+ * Benchmark of the batched visit insert path, in rows per second. Compare
+ * <code>batchSize=1</code> (one statement per row) with the configured batch size.
+ * Batching saves network round trips, so run it against a real database to see the
+ * difference, e.g. with <code>-jvmArgs -Dspring.profiles.active=mysql</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisitWriteBenchmarks {
+
+	private static final int ROWS = 1000;
+
+	@Param({ "1", "50" })
+	public int batchSize;
+
+	private ConfigurableApplicationContext context;
+
+	private VisitRepository visits;
+
+	@Setup(Level.Trial)
+	public void start() {
+		this.context = SpringApplication.run(PetClinicApplication.class, "--server.port=0",
+				"--spring.jpa.properties.hibernate.jdbc.batch_size=" + this.batchSize, "--logging.level.root=WARN",
+				"--logging.level.org.springframework=WARN");
+		this.visits = this.context.getBean(VisitRepository.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		this.context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<Visit> saveAll() {
+		List<Visit> visits = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			Visit visit = new Visit();
+			visit.setPetId(1 + i % 13);
+			visit.setDescription("imported visit");
+			visits.add(visit);
+		}
+		return this.visits.saveAll(visits);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Builder of a strong HTTP entity tag from the ids and versions of the entities a
+ * response is made of. Handlers compare it with the <code>If-None-Match</code> header of
+ * the request, through
+ * {@link org.springframework.web.context.request.WebRequest#checkNotModified(String)},
+ * before a view is rendered or a body is serialized.
+ */
+public class VersionTag {
+
+	private final StringBuilder values = new StringBuilder();
+
+	/**
+	 * Add the id and version of an entity.
+	 * @param entity the entity, may be <code>null</code>
+	 * @return this builder
+	 */
+	public VersionTag add(BaseEntity entity) {
+		if (entity == null) {
+			return add((Object) null);
+		}
+		return add(entity.getId()).add(entity.getVersion());
+	}
+
+	/**
+	 * Add any other value the response depends on, such as its locale.
+	 * @param value the value
+	 * @return this builder
+	 */
+	public VersionTag add(Object value) {
+		this.values.append(value).append('|');
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return DigestUtils.md5DigestAsHex(this.values.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -16,7 +16,9 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -26,12 +28,12 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotEmpty;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.samples.petclinic.model.Person;
 
 /**
@@ -46,6 +48,9 @@ import org.springframework.samples.petclinic.model.Person;
 @Table(name = "owners")
 public class Owner extends Person {
 
+	private static final Comparator<Pet> BY_NAME = Comparator.comparing(Pet::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
 	@Column(name = "address")
 	@NotEmpty
 	private String address;
@@ -59,9 +64,23 @@ public class Owner extends Person {
 	@Digits(fraction = 0, integer = 10)
 	private String telephone;
 
+	/**
+	 * The telephone number as looked up by
+	 * {@link OwnerRepository#findAllSummariesByTelephone}, kept in step with
+	 * {@link #setTelephone}.
+	 */
+	@Column(name = "normalized_telephone")
+	private String normalizedTelephone;
+
 	@OneToMany(cascade = CascadeType.ALL, mappedBy = "owner")
 	private Set<Pet> pets;
 
+	/**
+	 * The pets sorted by name, kept until the pets change.
+	 */
+	@Transient
+	private transient List<Pet> sortedPets;
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -84,23 +103,57 @@ public class Owner extends Person {
 
 	public void setTelephone(String telephone) {
 		this.telephone = telephone;
+		this.normalizedTelephone = normalizeTelephone(telephone);
+	}
+
+	/**
+	 * Normalize a telephone number for lookups, so that a caller ID such as
+	 * <code>+1 (608) 555-1023</code> finds the owner with telephone
+	 * <code>6085551023</code>: only digits are kept, and only the last 10 of them, the
+	 * most an owner's telephone may have.
+	 * @param telephone the telephone number, in any format
+	 * @return the normalized number, or <code>null</code> if it has no digits
+	 */
+	public static String normalizeTelephone(String telephone) {
+		if (telephone == null) {
+			return null;
+		}
+		StringBuilder digits = new StringBuilder(telephone.length());
+		for (int i = 0; i < telephone.length(); i++) {
+			char c = telephone.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits.append(c);
+			}
+		}
+		if (digits.length() == 0) {
+			return null;
+		}
+		return digits.substring(Math.max(0, digits.length() - 10));
 	}
 
 	protected Set<Pet> getPetsInternal() {
 		if (this.pets == null) {
 			this.pets = new HashSet<>();
 		}
+		// the caller may change the pets
+		this.sortedPets = null;
 		return this.pets;
 	}
 
 	protected void setPetsInternal(Set<Pet> pets) {
 		this.pets = pets;
+		this.sortedPets = null;
 	}
 
 	public List<Pet> getPets() {
-		List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-		PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedPets);
+		List<Pet> sorted = this.sortedPets;
+		if (sorted == null) {
+			sorted = new ArrayList<>(getPetsInternal());
+			sorted.sort(BY_NAME);
+			sorted = Collections.unmodifiableList(sorted);
+			this.sortedPets = sorted;
+		}
+		return sorted;
 	}
 
 	public void addPet(Pet pet) {
@@ -126,7 +179,7 @@ public class Owner extends Person {
 	 */
 	public Pet getPet(String name, boolean ignoreNew) {
 		name = name.toLowerCase();
-		for (Pet pet : getPetsInternal()) {
+		for (Pet pet : getPets()) {
 			if (!ignoreNew || !pet.isNew()) {
 				String compName = pet.getName();
 				compName = compName.toLowerCase();
@@ -138,6 +191,16 @@ public class Owner extends Person {
 		return null;
 	}
 
+	/**
+	 * Return the events published when this owner is saved through
+	 * {@link OwnerRepository#save}.
+	 * @return an {@link OwnerSaved} event
+	 */
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return Collections.singletonList(new OwnerSaved(getId(), getLastName()));
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringCreator(this)
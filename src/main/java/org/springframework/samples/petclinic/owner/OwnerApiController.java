@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.VisitSummary;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Read-only JSON API of owners and their pets, for clients that poll it. Each request is
+ * handed over to the task executor, which has one thread per database connection, so the
+ * servlet thread is released while it waits for the database. Results are read as
+ * summaries and owners are paged by keyset, like the owner search.
+ */
+@Controller
+class OwnerApiController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private static final int MAX_TELEPHONES = 500;
+
+	private static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+
+	private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+	private final OwnerRepository owners;
+
+	private final PetRepository pets;
+
+	private final VisitRepository visits;
+
+	private final TaskExecutor executor;
+
+	public OwnerApiController(OwnerRepository owners, PetRepository pets, VisitRepository visits,
+			TaskExecutor executor) {
+		this.owners = owners;
+		this.pets = pets;
+		this.visits = visits;
+		this.executor = executor;
+	}
+
+	/**
+	 * Find one page of owners by last name. The URI of the next page, if any, is sent in
+	 * a <code>Link</code> header.
+	 */
+	@GetMapping("/api/owners")
+	public CompletableFuture<ResponseEntity<List<OwnerSummary>>> findOwners(
+			@RequestParam(name = "lastName", defaultValue = "") String lastName,
+			@RequestParam(name = "afterLastName", required = false) String afterLastName,
+			@RequestParam(name = "afterId", required = false) Integer afterId,
+			@RequestParam(name = "size", defaultValue = "20") int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		// the request is only bound to the servlet thread
+		UriComponentsBuilder nextPage = ServletUriComponentsBuilder.fromCurrentRequestUri()
+				.queryParam("lastName", lastName).queryParam("size", pageSize);
+		return CompletableFuture.supplyAsync(() -> {
+			boolean firstPage = afterLastName == null || afterId == null;
+			PageRequest limit = PageRequest.of(0, pageSize + 1);
+			List<Integer> ids = firstPage ? this.owners.findIdsByLastName(lastName, limit)
+					: this.owners.findIdsByLastNameAfter(lastName, afterLastName, afterId, limit);
+			boolean hasNextPage = ids.size() > pageSize;
+			if (hasNextPage) {
+				ids = ids.subList(0, pageSize);
+			}
+			List<OwnerSummary> results = ids.isEmpty() ? Collections.emptyList()
+					: this.owners.findAllSummariesByIdIn(ids);
+			ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+			if (hasNextPage) {
+				OwnerSummary last = results.get(results.size() - 1);
+				String uri = nextPage.queryParam("afterLastName", last.getLastName())
+						.queryParam("afterId", last.getId()).build().encode().toUriString();
+				response.header(HttpHeaders.LINK, "<" + uri + ">; rel=\"next\"");
+			}
+			return response.body(results);
+		}, this.executor);
+	}
+
+	/**
+	 * Find the owners with the given telephone number, for caller ID popups. The number
+	 * may be formatted in any way, see {@link Owner#normalizeTelephone}.
+	 */
+	@GetMapping(path = "/api/owners", params = "telephone")
+	public @ResponseBody CompletableFuture<List<OwnerSummary>> findOwnersByTelephone(
+			@RequestParam("telephone") String telephone) {
+		return CompletableFuture.supplyAsync(() -> this.owners.findAllSummariesByTelephone(telephone), this.executor);
+	}
+
+	/**
+	 * Find the owners of a batch of telephone numbers with a single query. The response
+	 * maps each number, as given, to its owners; numbers without owners are left out.
+	 */
+	@PostMapping("/api/owners/telephone-lookup")
+	public CompletableFuture<ResponseEntity<Map<String, List<OwnerSummary>>>> findOwnersByTelephones(
+			@RequestBody List<String> telephones) {
+		if (telephones.size() > MAX_TELEPHONES) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+		}
+		return CompletableFuture.supplyAsync(
+				() -> ResponseEntity.ok(this.owners.findAllSummariesByTelephoneIn(telephones)), this.executor);
+	}
+
+	@GetMapping("/api/owners/{ownerId}")
+	public CompletableFuture<ResponseEntity<OwnerSummary>> showOwner(@PathVariable("ownerId") int ownerId) {
+		return CompletableFuture.supplyAsync(() -> {
+			List<OwnerSummary> owner = this.owners.findAllSummariesByIdIn(Collections.singleton(ownerId));
+			return owner.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(owner.get(0));
+		}, this.executor);
+	}
+
+	@GetMapping("/api/owners/{ownerId}/pets")
+	public @ResponseBody CompletableFuture<List<PetSummary>> showPets(@PathVariable("ownerId") int ownerId) {
+		return CompletableFuture.supplyAsync(() -> this.pets.findSummariesByOwnerId(ownerId), this.executor);
+	}
+
+	/**
+	 * Show one page of the visit history of a pet, most recent first, optionally between
+	 * two dates. The URI of the next page, if any, is sent in a <code>Link</code> header.
+	 */
+	@GetMapping("/api/pets/{petId}/visits")
+	public CompletableFuture<ResponseEntity<List<VisitSummary>>> showVisits(@PathVariable("petId") int petId,
+			@RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size) {
+		PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+		// the request is only bound to the servlet thread
+		UriComponentsBuilder nextPage = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("page",
+				pageRequest.getPageNumber() + 1);
+		return CompletableFuture.supplyAsync(() -> {
+			Slice<VisitSummary> visits = this.visits.findSummariesByPetIdAndDateBetween(petId,
+					(from != null) ? from : EARLIEST, (to != null) ? to : LATEST, pageRequest);
+			ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+			if (visits.hasNext()) {
+				String uri = nextPage.build().encode().toUriString();
+				response.header(HttpHeaders.LINK, "<" + uri + ">; rel=\"next\"");
+			}
+			return response.body(visits.getContent());
+		}, this.executor);
+	}
+
+}
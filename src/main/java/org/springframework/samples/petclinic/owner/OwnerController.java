@@ -15,7 +15,14 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.VersionTag;
+import org.springframework.samples.petclinic.system.FragmentCache;
+import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -25,11 +32,21 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Juergen Hoeller
@@ -42,14 +59,34 @@ class OwnerController {
 
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
+	private static final int SEARCH_PAGE_SIZE = 20;
+
+	private static final int MAX_SUGGESTIONS = 20;
+
+	/**
+	 * Number of visits shown per pet on the owner page; older ones are loaded on demand
+	 * from {@link OwnerApiController#showVisits}, by pages of the same size.
+	 */
+	static final int RECENT_VISITS = 5;
+
 	// Comment Autowired
 	@Autowired
 	private OwnerRepository owners;
 
 	private VisitRepository visits;
 
-	public OwnerController(VisitRepository visits) {
+	private final OwnerSearchMetrics searchMetrics;
+
+	private final FragmentCache fragments;
+
+	private final OwnerNameIndex nameIndex;
+
+	public OwnerController(VisitRepository visits, OwnerSearchMetrics searchMetrics, FragmentCache fragments,
+			OwnerNameIndex nameIndex) {
 		this.visits = visits;
+		this.searchMetrics = searchMetrics;
+		this.fragments = fragments;
+		this.nameIndex = nameIndex;
 	}
 
 	@InitBinder
@@ -81,26 +118,63 @@ class OwnerController {
 		return "owners/findOwners";
 	}
 
+	/**
+	 * Suggest last names for the find owners form. They are read from the
+	 * {@link OwnerNameIndex}, which only queries the database until it is built.
+	 * @param lastName the start of the last name, whatever its case
+	 * @param size the maximum number of suggestions
+	 * @return the matching last names, in alphabetical order
+	 */
+	@GetMapping(path = "/owners/typeahead", produces = MediaType.APPLICATION_JSON_VALUE)
+	public @ResponseBody List<String> typeahead(@RequestParam("lastName") String lastName,
+			@RequestParam(name = "size", defaultValue = "10") int size) {
+		return this.nameIndex.suggest(lastName, Math.max(1, Math.min(size, MAX_SUGGESTIONS)));
+	}
+
 	@GetMapping("/owners")
-	public String processFindForm(Owner owner, BindingResult result, Map<String, Object> model) {
+	public String processFindForm(Owner owner, BindingResult result, Map<String, Object> model,
+			@RequestParam(name = "afterLastName", required = false) String afterLastName,
+			@RequestParam(name = "afterId", required = false) Integer afterId) {
+
+		// allow parameterless GET request for /owners to return all records
+		if (owner.getLastName() == null) {
+			owner.setLastName(""); // empty string signifies broadest possible search
+		}
 
-		System.out.println("Searching for " + owner.getLastName().trim());
+		// find one page of owners by last name, plus one id to know if there is more
+		boolean firstPage = afterLastName == null || afterId == null;
+		PageRequest limit = PageRequest.of(0, SEARCH_PAGE_SIZE + 1);
+		String lastName = owner.getLastName();
+		Timer.Sample search = this.searchMetrics.start();
+		List<Integer> ids = firstPage ? this.owners.findIdsByLastName(lastName, limit)
+				: this.owners.findIdsByLastNameAfter(lastName, afterLastName, afterId, limit);
+		boolean hasNextPage = ids.size() > SEARCH_PAGE_SIZE;
+		if (hasNextPage) {
+			ids = ids.subList(0, SEARCH_PAGE_SIZE);
+		}
+		boolean listed = !firstPage || ids.size() > 1;
+		List<OwnerSummary> results = (listed && !ids.isEmpty()) ? this.owners.findAllSummariesByIdIn(ids)
+				: Collections.emptyList();
+		this.searchMetrics.recordResults(search, lastName, firstPage, ids.size());
 
-		// find owners by last name
-		Collection<Owner> results = this.owners.findByLastName(owner.getLastName());
-		if (results.isEmpty()) {
+		if (firstPage && ids.isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
 			return "owners/findOwners";
 		}
-		else if (results.size() == 1) {
+		else if (!listed) {
 			// 1 owner found
-			owner = results.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			return "redirect:/owners/" + ids.get(0);
 		}
 		else {
 			// multiple owners found
 			model.put("selections", results);
+			model.put("firstPage", firstPage);
+			if (hasNextPage) {
+				OwnerSummary last = results.get(results.size() - 1);
+				model.put("nextAfterLastName", last.getLastName());
+				model.put("nextAfterId", last.getId());
+			}
 			return "owners/ownersList";
 		}
 	}
@@ -119,6 +193,10 @@ class OwnerController {
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 		}
 		else {
+			if (owner.getVersion() == null) {
+				// a form from before versions, or a client that does not send it back
+				throw new OptimisticLockingFailureException("Owner " + ownerId + " posted without a version");
+			}
 			owner.setId(ownerId);
 			this.owners.save(owner);
 			return "redirect:/owners/{ownerId}";
@@ -126,19 +204,77 @@ class OwnerController {
 	}
 
 	/**
-	 * Custom handler for displaying an owner.
+	 * Custom handler for displaying an owner. A request whose <code>If-None-Match</code>
+	 * header matches the versions of the owner, its pets and their visits is answered
+	 * with a 304 status, without rendering the page. Otherwise the row of each pet is
+	 * rendered once per version of the pet and its visits. Only the most recent visits
+	 * of each pet are shown, with a link to load older ones.
 	 * @param ownerId the ID of the owner to display
-	 * @return a ModelMap with the model attributes for the view
+	 * @return a ModelMap with the model attributes for the view, or <code>null</code>
+	 * if the page has not been modified
 	 */
 	@GetMapping("/owners/{ownerId}")
-	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
-		ModelAndView mav = new ModelAndView("owners/ownerDetails");
+	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId, ServletWebRequest request, Locale locale) {
 		Owner owner = this.owners.findById(ownerId);
-		for (Pet pet : owner.getPets()) {
-			pet.setVisitsInternal(visits.findByPetId(pet.getId()));
+		Set<Integer> withOlderVisits = loadRecentVisits(owner);
+		List<Pet> pets = owner.getPets();
+		VersionTag tag = new VersionTag().add(locale).add(owner);
+		List<VersionTag> petTags = new ArrayList<>();
+		for (Pet pet : pets) {
+			VersionTag petTag = new VersionTag().add(locale).add(owner.getId()).add(pet).add(pet.getType());
+			pet.getVisits().forEach(petTag::add);
+			petTag.add(withOlderVisits.contains(pet.getId()));
+			tag.add(petTag);
+			petTags.add(petTag);
+		}
+		if (request.checkNotModified(tag.toString())) {
+			return null;
 		}
+		List<String> petRows = new ArrayList<>();
+		for (int i = 0; i < petTags.size(); i++) {
+			Map<String, Object> variables = new HashMap<>();
+			variables.put("owner", owner);
+			variables.put("pet", pets.get(i));
+			variables.put("olderVisits", withOlderVisits.contains(pets.get(i).getId()));
+			variables.put("visitPageSize", RECENT_VISITS);
+			petRows.add(this.fragments.render("owners/petRow", "petRow", petTags.get(i), variables, request));
+		}
+		ModelAndView mav = new ModelAndView("owners/ownerDetails");
 		mav.addObject(owner);
+		mav.addObject("petRows", petRows);
 		return mav;
 	}
 
+	/**
+	 * Load the most recent visits of all pets of the given owner with a single query,
+	 * whatever the number of pets and the length of their history.
+	 * @param owner the owner whose pets should get their visits
+	 * @return the ids of the pets that have older visits
+	 */
+	private Set<Integer> loadRecentVisits(Owner owner) {
+		List<Pet> pets = owner.getPets();
+		if (pets.isEmpty()) {
+			return Collections.emptySet();
+		}
+		List<Integer> petIds = new ArrayList<>(pets.size());
+		for (Pet pet : pets) {
+			petIds.add(pet.getId());
+		}
+		Map<Integer, List<Visit>> visitsByPet = new HashMap<>();
+		// one more per pet to know if there are older visits
+		for (Visit visit : this.visits.findRecentByPetIdIn(petIds, RECENT_VISITS + 1)) {
+			visitsByPet.computeIfAbsent(visit.getPetId(), id -> new ArrayList<>()).add(visit);
+		}
+		Set<Integer> withOlderVisits = new HashSet<>();
+		for (Pet pet : pets) {
+			List<Visit> recent = visitsByPet.getOrDefault(pet.getId(), Collections.emptyList());
+			if (recent.size() > RECENT_VISITS) {
+				withOlderVisits.add(pet.getId());
+				recent = recent.subList(0, RECENT_VISITS);
+			}
+			pet.setVisitsInternal(recent);
+		}
+		return withOlderVisits;
+	}
+
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory index of the last names of all owners, for the typeahead of the find owners
+ * form. Each distinct last name is kept once, case-folded and sorted, with the number of
+ * owners who have it, so a prefix lookup is a seek in a skip list and is case-insensitive
+ * whatever the collation of the database. Besides the names, each owner only takes one
+ * entry of a map keyed by owner id, which tells which name to release when the owner is
+ * renamed.
+ * <p>
+ * The index is read from the database once the application is ready, on a thread of its
+ * own as it takes time in proportion to the number of owners, then updated from the
+ * {@link OwnerSaved} events of {@link OwnerRepository#save}. Until it is read, the
+ * suggestions come from a prefix query. Owners written by other means, for example by
+ * another instance of the application, are only seen after a restart.
+ */
+@Component
+class OwnerNameIndex implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(OwnerNameIndex.class);
+
+	private final ConcurrentNavigableMap<String, Name> lastNames = new ConcurrentSkipListMap<>();
+
+	/**
+	 * The name of each owner, by owner id. Guarded by this index.
+	 */
+	private final Map<Integer, Name> namesByOwnerId = new HashMap<>();
+
+	private volatile boolean built;
+
+	private final OwnerRepository owners;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ExecutorService executor;
+
+	OwnerNameIndex(OwnerRepository owners, PlatformTransactionManager transactionManager) {
+		this.owners = owners;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "owner-name-index");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Read the index from the database on the thread of the index rather than on the
+	 * startup thread.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildInBackground() {
+		this.executor.execute(() -> {
+			try {
+				build();
+			}
+			catch (RuntimeException ex) {
+				logger.error("Cannot build the owner name index, suggestions come from the database", ex);
+			}
+		});
+	}
+
+	/**
+	 * Read the last names of all owners. Owners saved in the meantime keep the last name
+	 * of their event.
+	 */
+	void build() {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<Object[]> rows = this.owners.streamIdsAndLastNames()) {
+				rows.forEach(row -> put((Integer) row[0], (String) row[1], false));
+			}
+		});
+		this.built = true;
+		logger.info("Indexed {} distinct last names of {} owners", distinctNames(), size());
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOwnerSaved(OwnerSaved event) {
+		put(event.getId(), event.getLastName(), true);
+	}
+
+	/**
+	 * Add the last name of an owner, or replace the one it had.
+	 * @param id the id of the owner
+	 * @param lastName its last name
+	 * @param replace whether to replace the last name already indexed for the owner
+	 */
+	synchronized void put(Integer id, String lastName, boolean replace) {
+		if (id == null || lastName == null) {
+			return;
+		}
+		String folded = fold(lastName);
+		Name previous = this.namesByOwnerId.get(id);
+		if (previous != null) {
+			if (!replace || previous.folded.equals(folded)) {
+				return;
+			}
+			if (--previous.owners == 0) {
+				this.lastNames.remove(previous.folded);
+			}
+		}
+		Name name = this.lastNames.computeIfAbsent(folded, (key) -> new Name(key, lastName));
+		name.owners++;
+		this.namesByOwnerId.put(id, name);
+	}
+
+	/**
+	 * Return the distinct last names that start with the given prefix, ignoring case, in
+	 * alphabetical order. Each name is returned as spelled by the first owner it was
+	 * indexed for. Until the index is built, the names are read from the database.
+	 * @param prefix the start of the last name
+	 * @param limit the maximum number of names to return
+	 * @return the matching last names
+	 */
+	List<String> suggest(String prefix, int limit) {
+		if (!this.built) {
+			return this.owners.findDistinctLastNamesStartingWith(prefix, PageRequest.of(0, limit));
+		}
+		String folded = fold(prefix);
+		List<String> names = new ArrayList<>();
+		for (Name name : this.lastNames.tailMap(folded).values()) {
+			if (names.size() >= limit || !name.folded.startsWith(folded)) {
+				break;
+			}
+			names.add(name.spelling);
+		}
+		return names;
+	}
+
+	/**
+	 * Return the number of indexed owners.
+	 * @return the number of owners
+	 */
+	synchronized int size() {
+		return this.namesByOwnerId.size();
+	}
+
+	/**
+	 * Return the number of distinct last names, ignoring case.
+	 * @return the number of names
+	 */
+	int distinctNames() {
+		return this.lastNames.size();
+	}
+
+	private static String fold(String name) {
+		return name.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * A distinct last name and the number of owners who have it.
+	 */
+	private static final class Name {
+
+		private final String folded;
+
+		private final String spelling;
+
+		private int owners;
+
+		Name(String folded, String spelling) {
+			this.folded = folded;
+			this.spelling = spelling;
+		}
+
+	}
+
+}
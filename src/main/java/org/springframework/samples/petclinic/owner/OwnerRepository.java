@@ -15,9 +15,21 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
@@ -47,18 +59,186 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
 	/**
-	 * Retrieve an {@link Owner} from the data store by id.
+	 * Retrieve the ids of the first {@link Owner}s whose last name <i>starts</i> with the
+	 * given name, ordered by last name and id. Only the page requested through the given
+	 * {@link Pageable} is read, which keeps the result bounded for short search strings.
+	 * @param lastName Value to search for
+	 * @param pageable the page size (only the first page is meaningful)
+	 * @return the ids of the matching {@link Owner}s
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name and that sort after the given (last name, id) key. This is the keyset (seek)
+	 * variant of {@link #findIdsByLastName}: the database jumps straight to the key via
+	 * the last name index instead of counting past skipped rows.
+	 * @param lastName Value to search for
+	 * @param afterLastName last name of the last owner of the previous page
+	 * @param afterId id of the last owner of the previous page
+	 * @param pageable the page size (only the first page is meaningful)
+	 * @return the ids of the matching {@link Owner}s
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% AND (owner.lastName > :afterLastName"
+			+ " OR (owner.lastName = :afterLastName AND owner.id > :afterId)) ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId, Pageable pageable);
+
+	/**
+	 * Retrieve the {@link OwnerSummary summaries} of the {@link Owner}s with the given
+	 * ids, ordered by last name and id, for the search results list.
+	 * @param ids the ids of the owners to load
+	 * @return the matching {@link OwnerSummary summaries}
+	 */
+	default List<OwnerSummary> findAllSummariesByIdIn(Collection<Integer> ids) {
+		Map<Integer, OwnerSummary> summaries = new LinkedHashMap<>();
+		for (OwnerSummary row : findSummaryRowsByIdIn(ids)) {
+			summaries.merge(row.getId(), row, OwnerSummary::merge);
+		}
+		return new ArrayList<>(summaries.values());
+	}
+
+	/**
+	 * Retrieve one {@link OwnerSummary} per pet of the {@link Owner}s with the given ids
+	 * (one without pet names for owners without pets), ordered by last name, id and pet
+	 * name.
+	 * @param ids the ids of the owners to load
+	 * @return the matching rows
+	 * @see #findAllSummariesByIdIn
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(owner.id, owner.firstName,"
+			+ " owner.lastName, owner.address, owner.city, owner.telephone, pet.name) FROM Owner owner"
+			+ " left join owner.pets pet WHERE owner.id IN :ids ORDER BY owner.lastName, owner.id, pet.name")
+	@Transactional(readOnly = true)
+	List<OwnerSummary> findSummaryRowsByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve the {@link OwnerSummary summaries} of the {@link Owner}s with the given
+	 * telephone number, in any format, for caller ID lookups. Numbers are compared in
+	 * their {@link Owner#normalizeTelephone normalized} form, which is indexed.
+	 * @param telephone the telephone number
+	 * @return the matching {@link OwnerSummary summaries}, ordered by last name and id
+	 */
+	default List<OwnerSummary> findAllSummariesByTelephone(String telephone) {
+		List<OwnerSummary> summaries = findAllSummariesByTelephoneIn(Collections.singleton(telephone)).get(telephone);
+		return (summaries != null) ? summaries : Collections.emptyList();
+	}
+
+	/**
+	 * Retrieve the {@link OwnerSummary summaries} of the {@link Owner}s with any of the
+	 * given telephone numbers with a single query, see
+	 * {@link #findAllSummariesByTelephone}.
+	 * @param telephones the telephone numbers, in any format
+	 * @return the matching {@link OwnerSummary summaries} by telephone number as given,
+	 * ordered by last name and id; numbers without owners are left out
+	 */
+	default Map<String, List<OwnerSummary>> findAllSummariesByTelephoneIn(Collection<String> telephones) {
+		Map<String, List<String>> requested = new LinkedHashMap<>();
+		for (String telephone : telephones) {
+			String normalized = Owner.normalizeTelephone(telephone);
+			if (normalized != null) {
+				requested.computeIfAbsent(normalized, key -> new ArrayList<>()).add(telephone);
+			}
+		}
+		Map<String, List<OwnerSummary>> results = new LinkedHashMap<>();
+		if (requested.isEmpty()) {
+			return results;
+		}
+		Map<Integer, OwnerSummary> summaries = new LinkedHashMap<>();
+		for (OwnerSummary row : findSummaryRowsByNormalizedTelephoneIn(requested.keySet())) {
+			summaries.merge(row.getId(), row, OwnerSummary::merge);
+		}
+		for (OwnerSummary summary : summaries.values()) {
+			String normalized = Owner.normalizeTelephone(summary.getTelephone());
+			for (String telephone : requested.getOrDefault(normalized, Collections.emptyList())) {
+				results.computeIfAbsent(telephone, key -> new ArrayList<>()).add(summary);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Retrieve one {@link OwnerSummary} per pet of the {@link Owner}s with the given
+	 * normalized telephone numbers, ordered by last name, id and pet name.
+	 * @param telephones the normalized telephone numbers
+	 * @return the matching rows
+	 * @see #findAllSummariesByTelephoneIn
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(owner.id, owner.firstName,"
+			+ " owner.lastName, owner.address, owner.city, owner.telephone, pet.name) FROM Owner owner"
+			+ " left join owner.pets pet WHERE owner.normalizedTelephone IN :telephones"
+			+ " ORDER BY owner.lastName, owner.id, pet.name")
+	@Transactional(readOnly = true)
+	List<OwnerSummary> findSummaryRowsByNormalizedTelephoneIn(@Param("telephones") Collection<String> telephones);
+
+	/**
+	 * Stream all {@link Owner}s with their pets, one {@link OwnerWithPets} per pet (one
+	 * without pets for owners without any), ordered by owner id and pet name. The rows
+	 * are fetched from a cursor, so the stream must be consumed, and closed, within a
+	 * transaction.
+	 * @return the rows
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerWithPets(owner.id, owner.firstName,"
+			+ " owner.lastName, owner.address, owner.city, owner.telephone, pet.id, pet.name, pet.birthDate, type.name)"
+			+ " FROM Owner owner left join owner.pets pet left join pet.type type ORDER BY owner.id, pet.name")
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	Stream<OwnerWithPets> streamAllWithPets();
+
+	/**
+	 * Retrieve the distinct last names of the {@link Owner}s that <i>start</i> with the
+	 * given prefix, in alphabetical order, for the typeahead while the
+	 * {@link OwnerNameIndex} is not built yet. Unlike the index, the comparison follows the
+	 * collation of the database, like {@link #findIdsByLastName}.
+	 * @param prefix the start of the last name
+	 * @param pageable the number of names (only the first page is meaningful)
+	 * @return the matching last names
+	 */
+	@Query("SELECT DISTINCT owner.lastName FROM Owner owner WHERE owner.lastName LIKE :prefix% ORDER BY owner.lastName")
+	@Transactional(readOnly = true)
+	List<String> findDistinctLastNamesStartingWith(@Param("prefix") String prefix, Pageable pageable);
+
+	/**
+	 * Stream the id and last name of every {@link Owner}, fetched from a cursor, to build
+	 * the {@link OwnerNameIndex}. The stream must be consumed, and closed, within a
+	 * transaction.
+	 * @return the id and last name of each owner
+	 */
+	@Query("SELECT owner.id, owner.lastName FROM Owner owner")
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	Stream<Object[]> streamIdsAndLastNames();
+
+	/**
+	 * Retrieve an {@link Owner} from the data store by id. Owners are served from the
+	 * <code>owners</code> cache, which is evicted whenever the owner or one of its pets
+	 * is saved.
 	 * @param id the id to search for
 	 * @return the {@link Owner} if found
 	 */
 	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
 	@Transactional(readOnly = true)
+	@Cacheable("owners")
 	Owner findById(@Param("id") Integer id);
 
 	/**
-	 * Save an {@link Owner} to the data store, either inserting or updating it.
+	 * Retrieve an {@link Owner} from the data store by id, without its pets. Use this
+	 * when only the owner's own fields are needed, since its pets cannot be loaded later
+	 * on.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@Transactional(readOnly = true)
+	Owner findWithoutPetsById(@Param("id") Integer id);
+
+	/**
+	 * Save an {@link Owner} to the data store, either inserting or updating it. An
+	 * {@link OwnerSaved} event is published, see {@link Owner#domainEvents()}.
 	 * @param owner the {@link Owner} to save
 	 */
+	@CacheEvict(cacheNames = "owners", key = "#owner.id")
 	void save(Owner owner);
 
 }
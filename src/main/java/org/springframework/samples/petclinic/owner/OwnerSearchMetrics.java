@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer instrumentation of the owner search, published through the actuator
+ * <code>metrics</code> endpoint:
+ * <ul>
+ * <li><code>petclinic.owners.search</code>: latency of each page of the search, from the
+ * id query to the owner summaries</li>
+ * <li><code>petclinic.owners.search.results</code>: number of owners on the first page</li>
+ * <li><code>petclinic.owners.search.outcome</code>: searches by outcome of their first page
+ * (<code>empty</code>, <code>single</code> or <code>multiple</code>)</li>
+ * </ul>
+ * Following pages only record their latency, so that paging through the results does not
+ * count as more searches.
+ * A fraction of the searches, set by <code>petclinic.owners.search.log-sample-rate</code>
+ * (0 by default), is also logged. The searched last name is personal data, so only its
+ * length is logged.
+ */
+@Component
+class OwnerSearchMetrics {
+
+	private static final Logger logger = LoggerFactory.getLogger(OwnerSearchMetrics.class);
+
+	private final MeterRegistry registry;
+
+	private final Timer latency;
+
+	private final DistributionSummary results;
+
+	private final Counter empty;
+
+	private final Counter single;
+
+	private final Counter multiple;
+
+	private final double logSampleRate;
+
+	OwnerSearchMetrics(MeterRegistry registry,
+			@Value("${petclinic.owners.search.log-sample-rate:0}") double logSampleRate) {
+		this.registry = registry;
+		this.latency = Timer.builder("petclinic.owners.search").description("Latency of an owner search page")
+				.register(registry);
+		this.results = DistributionSummary.builder("petclinic.owners.search.results")
+				.description("Number of owners returned by a search").baseUnit("owners").register(registry);
+		this.empty = outcome(registry, "empty");
+		this.single = outcome(registry, "single");
+		this.multiple = outcome(registry, "multiple");
+		this.logSampleRate = logSampleRate;
+	}
+
+	private static Counter outcome(MeterRegistry registry, String outcome) {
+		return Counter.builder("petclinic.owners.search.outcome").description("Owner searches by outcome")
+				.tag("outcome", outcome).register(registry);
+	}
+
+	/**
+	 * Start timing a page of the search.
+	 * @return the sample to pass to {@link #recordResults}
+	 */
+	Timer.Sample start() {
+		return Timer.start(this.registry);
+	}
+
+	/**
+	 * Record the latency of a page of the search and, for the first page, the number of
+	 * owners it found.
+	 * @param sample the sample returned by {@link #start()}
+	 * @param lastName the searched last name
+	 * @param firstPage whether this was the first page of the search
+	 * @param count the number of owners found on the page
+	 */
+	void recordResults(Timer.Sample sample, String lastName, boolean firstPage, int count) {
+		sample.stop(this.latency);
+		if (firstPage) {
+			this.results.record(count);
+			if (count == 0) {
+				this.empty.increment();
+			}
+			else if (count == 1) {
+				this.single.increment();
+			}
+			else {
+				this.multiple.increment();
+			}
+		}
+		if (this.logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < this.logSampleRate) {
+			int length = (lastName != null) ? lastName.length() : 0;
+			logger.info("owner search lastNameLength={} firstPage={} results={}", length, firstPage, count);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of an {@link Owner} for the search results: its own fields and the names
+ * of its pets. It is read with a scalar query, one row per pet, so none of the owners and
+ * pets become managed entities.
+ *
+ * @see OwnerRepository#findAllSummariesByIdIn
+ */
+public class OwnerSummary {
+
+	private final Integer id;
+
+	private final String firstName;
+
+	private final String lastName;
+
+	private final String address;
+
+	private final String city;
+
+	private final String telephone;
+
+	private final List<String> petNames = new ArrayList<>();
+
+	public OwnerSummary(Integer id, String firstName, String lastName, String address, String city, String telephone,
+			String petName) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.address = address;
+		this.city = city;
+		this.telephone = telephone;
+		if (petName != null) {
+			this.petNames.add(petName);
+		}
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	public List<String> getPetNames() {
+		return Collections.unmodifiableList(this.petNames);
+	}
+
+	/**
+	 * Add the pet names of another row of the same owner to this one.
+	 * @param other a row of the same owner
+	 * @return this summary
+	 */
+	OwnerSummary merge(OwnerSummary other) {
+		this.petNames.addAll(other.petNames);
+		return this;
+	}
+
+}
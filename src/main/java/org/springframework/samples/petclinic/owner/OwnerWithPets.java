@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of an {@link Owner} and its pets for the exports. Like
+ * {@link OwnerSummary} it is read with a scalar query, one row per pet, so streaming all
+ * owners does not fill the persistence context.
+ *
+ * @see OwnerRepository#streamAllWithPets
+ */
+public class OwnerWithPets {
+
+	private final Integer id;
+
+	private final String firstName;
+
+	private final String lastName;
+
+	private final String address;
+
+	private final String city;
+
+	private final String telephone;
+
+	private final List<PetSummary> pets = new ArrayList<>();
+
+	public OwnerWithPets(Integer id, String firstName, String lastName, String address, String city, String telephone,
+			Integer petId, String petName, LocalDate petBirthDate, String petType) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.address = address;
+		this.city = city;
+		this.telephone = telephone;
+		if (petId != null) {
+			this.pets.add(new PetSummary(petId, petName, petBirthDate, petType));
+		}
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	public List<PetSummary> getPets() {
+		return Collections.unmodifiableList(this.pets);
+	}
+
+	/**
+	 * Add the pets of another row of the same owner to this one.
+	 * @param other a row of the same owner
+	 * @return this view
+	 */
+	public OwnerWithPets merge(OwnerWithPets other) {
+		this.pets.addAll(other.pets);
+		return this;
+	}
+
+}
@@ -19,6 +19,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -31,8 +32,6 @@ import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
 import org.springframework.samples.petclinic.visit.Visit;
@@ -48,6 +47,9 @@ import org.springframework.samples.petclinic.visit.Visit;
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
+	private static final Comparator<Visit> BY_DATE_DESCENDING = Comparator.comparing(Visit::getDate,
+			Comparator.nullsFirst(Comparator.<LocalDate>reverseOrder()));
+
 	@Column(name = "birth_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate birthDate;
@@ -63,6 +65,12 @@ public class Pet extends NamedEntity {
 	@Transient
 	private Set<Visit> visits = new LinkedHashSet<>();
 
+	/**
+	 * The visits sorted by date, most recent first, kept until the visits change.
+	 */
+	@Transient
+	private transient List<Visit> sortedVisits;
+
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
 	}
@@ -91,17 +99,25 @@ public class Pet extends NamedEntity {
 		if (this.visits == null) {
 			this.visits = new HashSet<>();
 		}
+		// the caller may change the visits
+		this.sortedVisits = null;
 		return this.visits;
 	}
 
 	protected void setVisitsInternal(Collection<Visit> visits) {
 		this.visits = new LinkedHashSet<>(visits);
+		this.sortedVisits = null;
 	}
 
 	public List<Visit> getVisits() {
-		List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-		PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-		return Collections.unmodifiableList(sortedVisits);
+		List<Visit> sorted = this.sortedVisits;
+		if (sorted == null) {
+			sorted = new ArrayList<>(getVisitsInternal());
+			sorted.sort(BY_DATE_DESCENDING);
+			sorted = Collections.unmodifiableList(sorted);
+			this.sortedVisits = sorted;
+		}
+		return sorted;
 	}
 
 	public void addVisit(Visit visit) {
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
@@ -23,9 +24,13 @@ import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.Collection;
 
 /**
+ * Handlers of the pet forms. There is no shared <code>@ModelAttribute</code> for the
+ * owner: every handler loads only what it needs, i.e. the owner alone, the owner with its
+ * pets (to check for a duplicate name) or the pet alone (which comes with its owner). Pet
+ * types are only added to the model when the form is rendered.
+ *
  * @author Juergen Hoeller
  * @author Ken Krebs
  * @author Arjen Poutsma
@@ -45,43 +50,29 @@ class PetController {
 		this.owners = owners;
 	}
 
-	@ModelAttribute("types")
-	public Collection<PetType> populatePetTypes() {
-		return this.pets.findPetTypes();
-	}
-
-	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
-		return this.owners.findById(ownerId);
-	}
-
-	@InitBinder("owner")
-	public void initOwnerBinder(WebDataBinder dataBinder) {
-		dataBinder.setDisallowedFields("id");
-	}
-
 	@InitBinder("pet")
 	public void initPetBinder(WebDataBinder dataBinder) {
 		dataBinder.setValidator(new PetValidator());
 	}
 
 	@GetMapping("/pets/new")
-	public String initCreationForm(Owner owner, ModelMap model) {
+	public String initCreationForm(@PathVariable("ownerId") int ownerId, ModelMap model) {
+		Owner owner = this.owners.findWithoutPetsById(ownerId);
 		Pet pet = new Pet();
-		owner.addPet(pet);
-		model.put("pet", pet);
-		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+		pet.setOwner(owner);
+		return showForm(owner, pet, model);
 	}
 
 	@PostMapping("/pets/new")
-	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model) {
+	public String processCreationForm(@PathVariable("ownerId") int ownerId, @Valid Pet pet, BindingResult result,
+			ModelMap model) {
+		Owner owner = this.owners.findById(ownerId);
 		if (StringUtils.hasLength(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null) {
 			result.rejectValue("name", "duplicate", "already exists");
 		}
 		owner.addPet(pet);
 		if (result.hasErrors()) {
-			model.put("pet", pet);
-			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+			return showForm(owner, pet, model);
 		}
 		else {
 			this.pets.save(pet);
@@ -92,22 +83,32 @@ class PetController {
 	@GetMapping("/pets/{petId}/edit")
 	public String initUpdateForm(@PathVariable("petId") int petId, ModelMap model) {
 		Pet pet = this.pets.findById(petId);
-		model.put("pet", pet);
-		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+		return showForm(pet.getOwner(), pet, model);
 	}
 
 	@PostMapping("/pets/{petId}/edit")
-	public String processUpdateForm(@Valid Pet pet, BindingResult result, Owner owner, ModelMap model) {
+	public String processUpdateForm(@PathVariable("ownerId") int ownerId, @Valid Pet pet, BindingResult result,
+			ModelMap model) {
+		Owner owner = this.owners.findWithoutPetsById(ownerId);
+		pet.setOwner(owner);
 		if (result.hasErrors()) {
-			pet.setOwner(owner);
-			model.put("pet", pet);
-			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+			return showForm(owner, pet, model);
 		}
 		else {
-			owner.addPet(pet);
+			if (pet.getVersion() == null) {
+				// a form from before versions, or a client that does not send it back
+				throw new OptimisticLockingFailureException("Pet " + pet.getId() + " posted without a version");
+			}
 			this.pets.save(pet);
 			return "redirect:/owners/{ownerId}";
 		}
 	}
 
+	private String showForm(Owner owner, Pet pet, ModelMap model) {
+		model.put("owner", owner);
+		model.put("pet", pet);
+		model.put("types", this.pets.findPetTypes());
+		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+	}
+
 }
@@ -15,10 +15,14 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -35,11 +39,13 @@ import org.springframework.transaction.annotation.Transactional;
 public interface PetRepository extends Repository<Pet, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Retrieve all {@link PetType}s from the data store. The types are reference data
+	 * read on every pet form, so they are served from the <code>petTypes</code> cache.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
 	@Transactional(readOnly = true)
+	@Cacheable("petTypes")
 	List<PetType> findPetTypes();
 
 	/**
@@ -50,10 +56,31 @@ public interface PetRepository extends Repository<Pet, Integer> {
 	@Transactional(readOnly = true)
 	Pet findById(Integer id);
 
+	/**
+	 * Retrieve the {@link PetSummary summaries} of the {@link Pet}s of an owner, ordered
+	 * by name.
+	 * @param ownerId the id of the owner
+	 * @return the matching {@link PetSummary summaries}
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.owner.PetSummary(pet.id, pet.name, pet.birthDate,"
+			+ " type.name) FROM Pet pet left join pet.type type WHERE pet.owner.id = :ownerId ORDER BY pet.name")
+	@Transactional(readOnly = true)
+	List<PetSummary> findSummariesByOwnerId(@Param("ownerId") Integer ownerId);
+
+	/**
+	 * Retrieve which of the given ids belong to an existing {@link Pet}.
+	 * @param ids the ids to check
+	 * @return the ids of the existing {@link Pet}s
+	 */
+	@Query("SELECT pet.id FROM Pet pet WHERE pet.id IN :ids")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByIdIn(@Param("ids") Collection<Integer> ids);
+
 	/**
 	 * Save a {@link Pet} to the data store, either inserting or updating it.
 	 * @param pet the {@link Pet} to save
 	 */
+	@CacheEvict(cacheNames = "owners", key = "#pet.owner.id")
 	void save(Pet pet);
 
 }
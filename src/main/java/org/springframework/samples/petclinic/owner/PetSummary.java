@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a {@link Pet} for the JSON API: its own fields and the name of its
+ * type. It is read with a scalar query, so neither the pet nor its owner become managed
+ * entities.
+ *
+ * @see PetRepository#findSummariesByOwnerId
+ */
+public class PetSummary {
+
+	private final Integer id;
+
+	private final String name;
+
+	private final LocalDate birthDate;
+
+	private final String type;
+
+	public PetSummary(Integer id, String name, LocalDate birthDate, String type) {
+		this.id = id;
+		this.name = name;
+		this.birthDate = birthDate;
+		this.type = type;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public LocalDate getBirthDate() {
+		return this.birthDate;
+	}
+
+	public String getType() {
+		return this.type;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills in the normalized telephone of the owners saved before the column existed, once
+ * the schema scripts have added it. The numbers are normalized with
+ * {@link Owner#normalizeTelephone}, as MySQL 5.7 cannot strip the non-digits in SQL, and
+ * the owners are read in pages of ids so that an upgrade of a large table does not hold
+ * them all in memory. Owners whose telephone has no digits keep a <code>null</code> one.
+ */
+@Component
+class TelephoneBackfill implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(TelephoneBackfill.class);
+
+	private static final int PAGE_SIZE = 500;
+
+	private final JdbcTemplate jdbc;
+
+	TelephoneBackfill(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		int updated = 0;
+		int afterId = Integer.MIN_VALUE;
+		while (true) {
+			List<Object[]> rows = this.jdbc.query(
+					"SELECT id, telephone FROM owners WHERE normalized_telephone IS NULL AND telephone IS NOT NULL"
+							+ " AND id > ? ORDER BY id LIMIT " + PAGE_SIZE,
+					(rs, rowNum) -> new Object[] { rs.getInt(1), rs.getString(2) }, afterId);
+			if (rows.isEmpty()) {
+				break;
+			}
+			List<Object[]> updates = new ArrayList<>(rows.size());
+			for (Object[] row : rows) {
+				String normalized = Owner.normalizeTelephone((String) row[1]);
+				if (normalized != null) {
+					updates.add(new Object[] { normalized, row[0] });
+				}
+			}
+			this.jdbc.batchUpdate("UPDATE owners SET normalized_telephone = ? WHERE id = ?", updates);
+			updated += updates.size();
+			afterId = (Integer) rows.get(rows.size() - 1)[0];
+		}
+		if (updated > 0) {
+			logger.info("Normalized the telephone of {} owners", updated);
+		}
+	}
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Bulk import of visits, for example from partner clinics. The upload is read line by
+ * line, either as CSV (<code>pet_id,visit_date,description</code>, with an optional
+ * header naming these columns) or as newline-delimited JSON (<code>{"petId":7,"date":"2021-01-01",
+ * "description":"rabies shot"}</code>), so its size is not bound by memory. CSV fields
+ * may be quoted, with <code>""</code> for a quote, but a row cannot span several lines;
+ * an unquoted description may contain commas. Valid rows are written in chunks, each in
+ * its own transaction, and the response lists the rejected rows, including those of a
+ * chunk the database failed to save.
+ */
+@Controller
+class VisitImportController {
+
+	private static final Logger logger = LoggerFactory.getLogger(VisitImportController.class);
+
+	private static final int MAX_REPORTED_ERRORS = 1000;
+
+	private static final List<String> CSV_HEADER = Arrays.asList("pet_id", "visit_date", "description");
+
+	private final VisitRepository visits;
+
+	private final PetRepository pets;
+
+	private final Validator validator;
+
+	private final ObjectMapper objectMapper;
+
+	private final int chunkSize;
+
+	public VisitImportController(VisitRepository visits, PetRepository pets, Validator validator,
+			ObjectMapper objectMapper, @Value("${petclinic.visits.import.chunk-size:500}") int chunkSize) {
+		this.visits = visits;
+		this.pets = pets;
+		this.validator = validator;
+		this.objectMapper = objectMapper;
+		this.chunkSize = chunkSize;
+	}
+
+	@PostMapping(path = "/visits/import", consumes = "text/csv")
+	public @ResponseBody VisitImportReport importCsv(InputStream body) throws IOException {
+		return importVisits(body, true);
+	}
+
+	@PostMapping(path = "/visits/import", consumes = "application/x-ndjson")
+	public @ResponseBody VisitImportReport importNdjson(InputStream body) throws IOException {
+		return importVisits(body, false);
+	}
+
+	private VisitImportReport importVisits(InputStream body, boolean csv) throws IOException {
+		VisitImportReport report = new VisitImportReport(MAX_REPORTED_ERRORS);
+		List<Row> chunk = new ArrayList<>(this.chunkSize);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || (csv && lineNumber == 1 && isCsvHeader(line))) {
+				// blank line or CSV header
+				continue;
+			}
+			try {
+				Visit visit = csv ? parseCsv(line) : parseJson(line);
+				String error = validate(visit);
+				if (error != null) {
+					report.reject(lineNumber, error);
+				}
+				else {
+					chunk.add(new Row(lineNumber, visit));
+				}
+			}
+			catch (IllegalArgumentException | DateTimeParseException ex) {
+				report.reject(lineNumber, "cannot parse row: " + ex.getMessage());
+			}
+			catch (JsonProcessingException ex) {
+				report.reject(lineNumber, "cannot parse row: " + ex.getOriginalMessage());
+			}
+			if (chunk.size() >= this.chunkSize) {
+				write(chunk, report);
+				chunk.clear();
+			}
+		}
+		write(chunk, report);
+		return report;
+	}
+
+	private Visit parseCsv(String line) {
+		List<String> columns = splitCsv(line, 3);
+		if (columns.size() < 3) {
+			throw new IllegalArgumentException("expected pet_id,visit_date,description");
+		}
+		Visit visit = new Visit();
+		visit.setPetId(Integer.valueOf(columns.get(0)));
+		if (!columns.get(1).isEmpty()) {
+			visit.setDate(LocalDate.parse(columns.get(1)));
+		}
+		visit.setDescription(columns.get(2));
+		return visit;
+	}
+
+	/**
+	 * Whether the line names the CSV columns, whatever their case and quoting.
+	 */
+	private static boolean isCsvHeader(String line) {
+		List<String> columns;
+		try {
+			columns = splitCsv(line, CSV_HEADER.size());
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+		for (int i = 0; i < columns.size(); i++) {
+			columns.set(i, columns.get(i).toLowerCase(Locale.ROOT));
+		}
+		return columns.equals(CSV_HEADER);
+	}
+
+	/**
+	 * Split a CSV line into at most the given number of trimmed fields. Quoted fields are
+	 * unquoted; the last field takes the rest of the line unless it is quoted.
+	 */
+	static List<String> splitCsv(String line, int maxFields) {
+		List<String> fields = new ArrayList<>(maxFields);
+		int i = skipSpaces(line, 0);
+		while (true) {
+			if (i < line.length() && line.charAt(i) == '"') {
+				StringBuilder field = new StringBuilder();
+				i++;
+				while (true) {
+					if (i >= line.length()) {
+						throw new IllegalArgumentException("unterminated quoted field");
+					}
+					char c = line.charAt(i++);
+					if (c != '"') {
+						field.append(c);
+					}
+					else if (i < line.length() && line.charAt(i) == '"') {
+						field.append('"');
+						i++;
+					}
+					else {
+						break;
+					}
+				}
+				fields.add(field.toString());
+				i = skipSpaces(line, i);
+			}
+			else {
+				int end = (fields.size() == maxFields - 1) ? -1 : line.indexOf(',', i);
+				end = (end < 0) ? line.length() : end;
+				fields.add(line.substring(i, end).trim());
+				i = end;
+			}
+			if (i >= line.length()) {
+				return fields;
+			}
+			if (line.charAt(i) != ',' || fields.size() == maxFields) {
+				throw new IllegalArgumentException("unexpected text after field " + fields.size());
+			}
+			i = skipSpaces(line, i + 1);
+		}
+	}
+
+	private static int skipSpaces(String line, int index) {
+		while (index < line.length() && line.charAt(index) == ' ') {
+			index++;
+		}
+		return index;
+	}
+
+	private Visit parseJson(String line) throws JsonProcessingException {
+		Visit visit = this.objectMapper.readValue(line, Visit.class);
+		visit.setId(null);
+		visit.setVersion(null);
+		return visit;
+	}
+
+	private String validate(Visit visit) {
+		if (visit.getPetId() == null) {
+			return "petId is required";
+		}
+		Set<ConstraintViolation<Visit>> violations = this.validator.validate(visit);
+		if (!violations.isEmpty()) {
+			ConstraintViolation<Visit> violation = violations.iterator().next();
+			return violation.getPropertyPath() + " " + violation.getMessage();
+		}
+		return null;
+	}
+
+	/**
+	 * Save a chunk of valid rows, rejecting those of unknown pets. When the database fails
+	 * to save the chunk, its transaction is rolled back and all its rows are rejected, but
+	 * the import goes on with the next chunk.
+	 */
+	private void write(List<Row> chunk, VisitImportReport report) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		Set<Integer> petIds = new HashSet<>();
+		for (Row row : chunk) {
+			petIds.add(row.visit.getPetId());
+		}
+		Set<Integer> knownPetIds;
+		try {
+			knownPetIds = new HashSet<>(this.pets.findIdsByIdIn(petIds));
+		}
+		catch (DataAccessException ex) {
+			rejectChunk(chunk, report, ex);
+			return;
+		}
+		List<Row> valid = new ArrayList<>(chunk.size());
+		for (Row row : chunk) {
+			if (knownPetIds.contains(row.visit.getPetId())) {
+				valid.add(row);
+			}
+			else {
+				report.reject(row.line, "unknown pet " + row.visit.getPetId());
+			}
+		}
+		if (valid.isEmpty()) {
+			return;
+		}
+		List<Visit> visits = new ArrayList<>(valid.size());
+		for (Row row : valid) {
+			visits.add(row.visit);
+		}
+		try {
+			this.visits.saveAll(visits);
+			report.imported(visits.size());
+		}
+		catch (DataAccessException | TransactionException ex) {
+			rejectChunk(valid, report, ex);
+		}
+	}
+
+	private void rejectChunk(List<Row> rows, VisitImportReport report, RuntimeException ex) {
+		logger.warn("Could not save {} imported visits from line {}", rows.size(), rows.get(0).line, ex);
+		for (Row row : rows) {
+			report.reject(row.line, "not saved: database error");
+		}
+	}
+
+	private static class Row {
+
+		private final int line;
+
+		private final Visit visit;
+
+		Row(int line, Visit visit) {
+			this.line = line;
+			this.visit = visit;
+		}
+
+	}
+
+}
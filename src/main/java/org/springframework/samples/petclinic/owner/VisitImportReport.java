@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk visit import: how many rows were imported and why the others were
+ * rejected. Only the first rejected rows are listed, so that the report stays small for a
+ * badly formatted upload.
+ */
+public class VisitImportReport {
+
+	private final int maxErrors;
+
+	private final List<RowError> errors = new ArrayList<>();
+
+	private int imported;
+
+	private int rejected;
+
+	VisitImportReport(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	void imported(int count) {
+		this.imported += count;
+	}
+
+	void reject(int line, String message) {
+		this.rejected++;
+		if (this.errors.size() < this.maxErrors) {
+			this.errors.add(new RowError(line, message));
+		}
+	}
+
+	public int getImported() {
+		return this.imported;
+	}
+
+	public int getRejected() {
+		return this.rejected;
+	}
+
+	public List<RowError> getErrors() {
+		return this.errors;
+	}
+
+	public boolean isErrorsTruncated() {
+		return this.rejected > this.errors.size();
+	}
+
+	/**
+	 * A rejected row of the upload.
+	 */
+	public static class RowError {
+
+		private final int line;
+
+		private final String message;
+
+		RowError(int line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		public int getLine() {
+			return this.line;
+		}
+
+		public String getMessage() {
+			return this.message;
+		}
+
+	}
+
+}
@@ -16,40 +16,62 @@
 
 package org.springframework.samples.petclinic.system;
 
-import javax.cache.configuration.MutableConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
+import org.ehcache.impl.copy.SerializingCopier;
+import org.ehcache.jsr107.Eh107Configuration;
 
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * creates the caches listed in {@link CacheProperties} and enables statistics that become
+ * accessible via JMX and, through the actuator, as <code>cache.*</code> metrics.
+ * <p>
+ * The JCache API standard has no notion of size limits, so the caches are described with
+ * the native Ehcache configuration API and handed over to JCache. Caches that are already
+ * defined by a native Ehcache XML file (see <code>spring.cache.jcache.config</code> and
+ * the <code>cache-tiered</code> profile) are left as they are.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 class CacheConfiguration {
 
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(CacheProperties properties) {
 		return cm -> {
-			cm.createCache("vets", cacheConfiguration());
+			properties.getCaches().forEach((name, spec) -> {
+				if (cm.getCache(name) == null) {
+					cm.createCache(name, cacheConfiguration(spec));
+				}
+				cm.enableStatistics(name, true);
+			});
 		};
 	}
 
-	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
-	 * <p>
-	 * Within the configuration object that is provided by the JCache API standard, there
-	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
-	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration(CacheProperties.Spec spec) {
+		ResourcePoolsBuilder resources = ResourcePoolsBuilder.heap(spec.getHeapEntries());
+		if (spec.getOffHeap() != null) {
+			resources = resources.offheap(spec.getOffHeap().toMegabytes(), MemoryUnit.MB);
+		}
+		CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+				.newCacheConfigurationBuilder(Object.class, Object.class, resources);
+		if (spec.getTimeToLive() != null) {
+			builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(spec.getTimeToLive()));
+		}
+		if (spec.isStoreByValue()) {
+			builder = builder.withService(new DefaultCopierConfiguration<>(SerializingCopier.asCopierClass(),
+					DefaultCopierConfiguration.Type.VALUE));
+		}
+		return Eh107Configuration.fromEhcacheCacheConfiguration(builder);
 	}
 
 }
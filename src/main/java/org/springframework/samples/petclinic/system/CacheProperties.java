@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the application caches, bound from the <code>petclinic.cache</code>
+ * properties. Every entry of {@link #getCaches() caches} creates one cache with the given
+ * name.
+ */
+@ConfigurationProperties("petclinic.cache")
+public class CacheProperties {
+
+	private final Map<String, Spec> caches = new LinkedHashMap<>();
+
+	public Map<String, Spec> getCaches() {
+		return this.caches;
+	}
+
+	/**
+	 * Size limits and expiry of a single cache.
+	 */
+	public static class Spec {
+
+		/**
+		 * Maximum number of entries kept on the Java heap.
+		 */
+		private long heapEntries = 100;
+
+		/**
+		 * Size of the off-heap tier, none if not set.
+		 */
+		private DataSize offHeap;
+
+		/**
+		 * Time after which an entry expires once created, never if not set.
+		 */
+		private Duration timeToLive;
+
+		/**
+		 * Whether entries are copied on every read and write. Only reference data that
+		 * the application never modifies should be stored by reference.
+		 */
+		private boolean storeByValue = true;
+
+		public long getHeapEntries() {
+			return this.heapEntries;
+		}
+
+		public void setHeapEntries(long heapEntries) {
+			this.heapEntries = heapEntries;
+		}
+
+		public DataSize getOffHeap() {
+			return this.offHeap;
+		}
+
+		public void setOffHeap(DataSize offHeap) {
+			this.offHeap = offHeap;
+		}
+
+		public Duration getTimeToLive() {
+			return this.timeToLive;
+		}
+
+		public void setTimeToLive(Duration timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		public boolean isStoreByValue() {
+			return this.storeByValue;
+		}
+
+		public void setStoreByValue(boolean storeByValue) {
+			this.storeByValue = storeByValue;
+		}
+
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Limits the number of requests handled at the same time. Requests over the limit wait
+ * for their turn, in order, and are rejected with a 503 status if they wait for too long.
+ * An asynchronous request, such as those of the JSON API, holds its turn until it
+ * completes rather than until its first dispatch returns, and its async dispatch is not
+ * counted again. Static resources and the actuator are not limited. The limit can be
+ * changed at runtime, see {@link ConnectionPoolEndpoint}.
+ */
+class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private final ResizableSemaphore permits;
+
+	private final long timeoutMillis;
+
+	private int maxConcurrentRequests;
+
+	ConcurrencyLimitFilter(int maxConcurrentRequests, Duration timeout) {
+		this.permits = new ResizableSemaphore(maxConcurrentRequests);
+		this.timeoutMillis = timeout.toMillis();
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	synchronized int getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	/**
+	 * Change the limit. When it is lowered, the requests already over the new limit
+	 * complete, and the next ones wait until enough of them have.
+	 * @param maxConcurrentRequests the new maximum number of requests
+	 */
+	synchronized void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		int delta = maxConcurrentRequests - this.maxConcurrentRequests;
+		if (delta > 0) {
+			this.permits.release(delta);
+		}
+		else if (delta < 0) {
+			this.permits.reducePermits(-delta);
+		}
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		String path = request.getServletPath();
+		return path.startsWith("/resources/") || path.startsWith("/webjars/") || path.startsWith("/actuator");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		boolean acquired;
+		try {
+			acquired = this.permits.tryAcquire(this.timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired) {
+			response.setHeader("Retry-After", "1");
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return;
+		}
+		boolean async = false;
+		try {
+			chain.doFilter(request, response);
+			if (request.isAsyncStarted()) {
+				// the container calls the listener once this dispatch has returned
+				request.getAsyncContext().addListener(new ReleaseOnComplete());
+				async = true;
+			}
+		}
+		finally {
+			if (!async) {
+				this.permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Fair semaphore whose number of permits can be lowered.
+	 */
+	@SuppressWarnings("serial")
+	private static class ResizableSemaphore extends Semaphore {
+
+		ResizableSemaphore(int permits) {
+			super(permits, true);
+		}
+
+		@Override
+		protected void reducePermits(int reduction) {
+			super.reducePermits(reduction);
+		}
+
+	}
+
+	/**
+	 * Releases the permit of an asynchronous request once it completes, whether it timed
+	 * out or failed first.
+	 */
+	private class ReleaseOnComplete implements AsyncListener {
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			if (this.released.compareAndSet(false, true)) {
+				ConcurrencyLimitFilter.this.permits.release();
+			}
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// async processing started again, e.g. from the async dispatch
+			event.getAsyncContext().addListener(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Counts the connection leaks reported by Hikari as the
+ * <code>hikaricp.connections.leaks</code> metric, tagged with the pool. Hikari has no
+ * API for them: it only logs a warning from its leak task when a connection is held for
+ * longer than <code>spring.datasource.hikari.leak-detection-threshold</code>. This
+ * Logback turbo filter sees that warning before any level check, so it counts leaks even
+ * if the logger is turned off, and it relies on the logger and level only, not on the
+ * wording of the message. The task runs on the housekeeping thread of its pool, which
+ * gives the pool name. Nothing is counted when Logback is not the logging backend.
+ */
+class ConnectionLeakMetrics extends TurboFilter implements InitializingBean, DisposableBean {
+
+	private static final String LEAK_TASK_LOGGER = "com.zaxxer.hikari.pool.ProxyLeakTask";
+
+	private static final String HOUSEKEEPER_SUFFIX = " housekeeper";
+
+	private final MeterRegistry registry;
+
+	ConnectionLeakMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		setName("connectionLeakMetrics");
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+		if (loggerFactory instanceof LoggerContext) {
+			setContext((LoggerContext) loggerFactory);
+			start();
+			((LoggerContext) loggerFactory).addTurboFilter(this);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (getContext() != null) {
+			((LoggerContext) getContext()).getTurboFilterList().remove(this);
+			stop();
+		}
+	}
+
+	@Override
+	public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+			Throwable t) {
+		// the leak task also logs at info level when a leaked connection comes back
+		if (level == Level.WARN && LEAK_TASK_LOGGER.equals(logger.getName())) {
+			String pool = Thread.currentThread().getName();
+			if (pool.endsWith(HOUSEKEEPER_SUFFIX)) {
+				pool = pool.substring(0, pool.length() - HOUSEKEEPER_SUFFIX.length());
+			}
+			Counter.builder("hikaricp.connections.leaks")
+					.description("Connections held for longer than the leak detection threshold").tag("pool", pool)
+					.register(this.registry).increment();
+		}
+		return FilterReply.NEUTRAL;
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Management of the connection pools, on top of the <code>hikaricp.connections.*</code>
+ * metrics that Spring Boot publishes for them: the {@link ConnectionPoolEndpoint} to
+ * inspect and resize the pools, and the {@link ConnectionLeakMetrics} to count the
+ * connections held for longer than
+ * <code>spring.datasource.hikari.leak-detection-threshold</code>. The pools themselves
+ * are sized with the <code>spring.datasource.hikari</code> properties of each database
+ * profile.
+ */
+@Configuration(proxyBeanMethods = false)
+class ConnectionPoolConfiguration {
+
+	@Bean
+	public ConnectionPoolEndpoint connectionPoolEndpoint(ObjectProvider<DataSource> dataSources,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+			ObjectProvider<ThreadPoolTaskExecutor> taskExecutor,
+			ObjectProvider<ConcurrencyLimitFilter> concurrencyLimit, ExecutionProperties executionProperties,
+			@Value("${petclinic.datasource.pool.max-size-limit:50}") int maxSizeLimit) {
+		return new ConnectionPoolEndpoint(dataSources, taskExecutor, concurrencyLimit, executionProperties,
+				maxSizeLimit);
+	}
+
+	@Bean
+	public ConnectionLeakMetrics connectionLeakMetrics(MeterRegistry registry) {
+		return new ConnectionLeakMetrics(registry);
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Actuator endpoint that shows the state of the Hikari connection pools and resizes them
+ * at runtime:
+ *
+ * <pre class="code">
+ * GET  /actuator/connectionpools
+ * POST /actuator/connectionpools/{pool} {"maximumPoolSize": 20, "minimumIdle": 5}
+ * </pre>
+ *
+ * Anyone who can reach it could shrink the pools, so the endpoint is disabled unless
+ * <code>management.endpoint.connectionpools.enabled</code> is set, and should then be
+ * secured. The new maximum size may not exceed
+ * <code>petclinic.datasource.pool.max-size-limit</code>. Resizing the primary pool also
+ * resizes the <code>applicationTaskExecutor</code>, which has one thread per connection,
+ * and the {@link ConcurrencyLimitFilter}, when its limit follows the pool size (see
+ * {@link ExecutionProperties#maxConcurrentRequestsFor(int)}).
+ * The detailed metrics of the pools are published as <code>hikaricp.connections.*</code>.
+ */
+@Endpoint(id = "connectionpools", enableByDefault = false)
+public class ConnectionPoolEndpoint {
+
+	private final ObjectProvider<DataSource> dataSources;
+
+	private final ObjectProvider<ThreadPoolTaskExecutor> taskExecutor;
+
+	private final ObjectProvider<ConcurrencyLimitFilter> concurrencyLimit;
+
+	private final ExecutionProperties executionProperties;
+
+	private final int maxSizeLimit;
+
+	ConnectionPoolEndpoint(ObjectProvider<DataSource> dataSources, ObjectProvider<ThreadPoolTaskExecutor> taskExecutor,
+			ObjectProvider<ConcurrencyLimitFilter> concurrencyLimit, ExecutionProperties executionProperties,
+			int maxSizeLimit) {
+		this.dataSources = dataSources;
+		this.taskExecutor = taskExecutor;
+		this.concurrencyLimit = concurrencyLimit;
+		this.executionProperties = executionProperties;
+		this.maxSizeLimit = maxSizeLimit;
+	}
+
+	@ReadOperation
+	public Map<String, PoolDescriptor> pools() {
+		Map<String, PoolDescriptor> descriptors = new LinkedHashMap<>();
+		findPools().forEach((name, pool) -> descriptors.put(name, new PoolDescriptor(pool)));
+		return descriptors;
+	}
+
+	@ReadOperation
+	public PoolDescriptor pool(@Selector String name) {
+		HikariDataSource pool = findPools().get(name);
+		return (pool != null) ? new PoolDescriptor(pool) : null;
+	}
+
+	@WriteOperation
+	public PoolDescriptor resize(@Selector String name, int maximumPoolSize, @Nullable Integer minimumIdle) {
+		Map<String, HikariDataSource> pools = findPools();
+		HikariDataSource pool = pools.get(name);
+		if (pool == null) {
+			return null;
+		}
+		int idle = (minimumIdle != null) ? minimumIdle : Math.min(pool.getMinimumIdle(), maximumPoolSize);
+		if (maximumPoolSize < 1 || maximumPoolSize > this.maxSizeLimit) {
+			throw new InvalidEndpointRequestException("maximumPoolSize must be between 1 and " + this.maxSizeLimit,
+					"Invalid maximumPoolSize");
+		}
+		if (idle < 0 || idle > maximumPoolSize) {
+			throw new InvalidEndpointRequestException("minimumIdle must be between 0 and maximumPoolSize",
+					"Invalid minimumIdle");
+		}
+		// shrink the idle connections first, so that both values are consistent at all
+		// times
+		if (idle < pool.getMinimumIdle()) {
+			pool.getHikariConfigMXBean().setMinimumIdle(idle);
+			pool.getHikariConfigMXBean().setMaximumPoolSize(maximumPoolSize);
+		}
+		else {
+			pool.getHikariConfigMXBean().setMaximumPoolSize(maximumPoolSize);
+			pool.getHikariConfigMXBean().setMinimumIdle(idle);
+		}
+		if (pool == pools.values().iterator().next()) {
+			resizeTaskExecutor(maximumPoolSize);
+			this.concurrencyLimit.ifAvailable((filter) -> filter
+					.setMaxConcurrentRequests(this.executionProperties.maxConcurrentRequestsFor(maximumPoolSize)));
+		}
+		return new PoolDescriptor(pool);
+	}
+
+	private void resizeTaskExecutor(int size) {
+		ThreadPoolTaskExecutor executor = this.taskExecutor.getIfAvailable();
+		if (executor == null) {
+			return;
+		}
+		// the core size may never exceed the maximum size
+		if (size < executor.getCorePoolSize()) {
+			executor.setCorePoolSize(size);
+			executor.setMaxPoolSize(size);
+		}
+		else {
+			executor.setMaxPoolSize(size);
+			executor.setCorePoolSize(size);
+		}
+	}
+
+	/**
+	 * Return the pools by name, the primary pool first.
+	 */
+	private Map<String, HikariDataSource> findPools() {
+		Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+		this.dataSources.orderedStream().forEach(dataSource -> {
+			Iterable<DataSource> targets = (dataSource instanceof ReplicaRoutingDataSource)
+					? ((ReplicaRoutingDataSource) dataSource).getPools() : Collections.singleton(dataSource);
+			for (DataSource target : targets) {
+				HikariDataSource pool = DataSourceUnwrapper.unwrap(target, HikariDataSource.class);
+				if (pool != null) {
+					pools.putIfAbsent(pool.getPoolName(), pool);
+				}
+			}
+		});
+		return pools;
+	}
+
+	/**
+	 * Size and usage of a connection pool.
+	 */
+	public static class PoolDescriptor {
+
+		private final int maximumPoolSize;
+
+		private final int minimumIdle;
+
+		private final int active;
+
+		private final int idle;
+
+		private final int pending;
+
+		PoolDescriptor(HikariDataSource pool) {
+			this.maximumPoolSize = pool.getMaximumPoolSize();
+			this.minimumIdle = pool.getMinimumIdle();
+			HikariPoolMXBean usage = pool.getHikariPoolMXBean();
+			this.active = (usage != null) ? usage.getActiveConnections() : 0;
+			this.idle = (usage != null) ? usage.getIdleConnections() : 0;
+			this.pending = (usage != null) ? usage.getThreadsAwaitingConnection() : 0;
+		}
+
+		public int getMaximumPoolSize() {
+			return this.maximumPoolSize;
+		}
+
+		public int getMinimumIdle() {
+			return this.minimumIdle;
+		}
+
+		public int getActive() {
+			return this.active;
+		}
+
+		public int getIdle() {
+			return this.idle;
+		}
+
+		public int getPending() {
+			return this.pending;
+		}
+
+	}
+
+}
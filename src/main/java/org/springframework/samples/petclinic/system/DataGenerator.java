@@ -0,0 +1,288 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a synthetic, production-like data set on top of the sample data, to run
+ * performance tests and benchmarks at scale. Enabled with the <code>generate</code>
+ * profile and sized by {@link DataGeneratorProperties}.
+ * <p>
+ * Rows are written with JDBC batches and explicit ids, so the generator works the same on
+ * H2, HSQLDB and MySQL. Last names follow a skewed distribution so that a few names are
+ * very common, most owners have one or two pets while a few breeders and shelters have
+ * dozens, and the number of visits per pet is geometrically distributed.
+ */
+@Component
+@Profile("generate")
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+public class DataGenerator implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(DataGenerator.class);
+
+	/**
+	 * Last names, most common first.
+	 */
+	public static final String[] LAST_NAMES = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+			"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+			"Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark",
+			"Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen",
+			"Hill", "Flores", "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter",
+			"Roberts" };
+
+	private static final String[] FIRST_NAMES = { "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+			"Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+			"Sarah", "Carlos", "Maria", "Wei", "Aiko", "Fatima", "Olga" };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee",
+			"Middleton", "Verona", "Fitchburg", "Stoughton" };
+
+	private static final String[] STREETS = { "Main St.", "Oak Blvd.", "Maple St.", "Lake St.", "Commerce St.",
+			"Cardinal Ave.", "Liberty St.", "Fair Way" };
+
+	private static final String[] PET_NAMES = { "Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max",
+			"Lucky", "Mulligan", "Freddy", "Sly", "Bella", "Charlie", "Luna", "Daisy", "Milo", "Coco", "Rocky",
+			"Nala" };
+
+	private static final String[] DESCRIPTIONS = { "check-up", "rabies shot", "vaccination", "neutered", "spayed",
+			"dental cleaning", "skin allergy", "ear infection", "limping", "x-ray" };
+
+	private static final String[] SPECIALTIES = { "anesthesia", "behavior", "cardiology", "dermatology", "emergency",
+			"internal medicine", "neurology", "oncology", "ophthalmology", "nutrition" };
+
+	private static final String[] TABLES = { "vets", "specialties", "owners", "pets", "visits" };
+
+	private static final String[] SEQUENCES = { "vet_seq", "specialty_seq", "owner_seq", "pet_seq", "visit_seq" };
+
+	private final JdbcTemplate jdbc;
+
+	private final DataGeneratorProperties properties;
+
+	public DataGenerator(JdbcTemplate jdbc, DataGeneratorProperties properties) {
+		this.jdbc = jdbc;
+		this.properties = properties;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		generate();
+	}
+
+	/**
+	 * Add the configured number of vets, owners, pets and visits to the database.
+	 */
+	public void generate() {
+		long start = System.nanoTime();
+		Random random = new Random(this.properties.getSeed());
+		List<Integer> specialties = generateSpecialties();
+		generateVets(random, specialties);
+		generateOwners(random);
+		String database = this.jdbc
+				.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+		restartIdentities(database);
+		restartSequences(database);
+		logger.info("Generated {} owners and {} vets in {} s", this.properties.getOwners(), this.properties.getVets(),
+				TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+	}
+
+	private List<Integer> generateSpecialties() {
+		Batch batch = new Batch("INSERT INTO specialties (id, name) VALUES (?, ?)");
+		int id = nextId("specialties");
+		for (String name : SPECIALTIES) {
+			Integer existing = this.jdbc.queryForObject("SELECT COUNT(*) FROM specialties WHERE name = ?",
+					Integer.class, name);
+			if (existing == 0) {
+				batch.add(id++, name);
+			}
+		}
+		batch.flush();
+		return this.jdbc.queryForList("SELECT id FROM specialties", Integer.class);
+	}
+
+	private void generateVets(Random random, List<Integer> specialties) {
+		Batch vets = new Batch("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)");
+		Batch vetSpecialties = new Batch("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)");
+		int id = nextId("vets");
+		for (int i = 0; i < this.properties.getVets(); i++, id++) {
+			vets.add(id, pick(random, FIRST_NAMES), pickSkewed(random, LAST_NAMES));
+			int first = random.nextInt(specialties.size());
+			int count = random.nextInt(3);
+			for (int s = 0; s < count; s++) {
+				vetSpecialties.add(id, specialties.get((first + s) % specialties.size()));
+			}
+		}
+		vets.flush();
+		vetSpecialties.flush();
+	}
+
+	private void generateOwners(Random random) {
+		Batch owners = new Batch("INSERT INTO owners (id, first_name, last_name, address, city, telephone,"
+				+ " normalized_telephone) VALUES (?, ?, ?, ?, ?, ?, ?)");
+		Batch pets = new Batch("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)");
+		Batch visits = new Batch("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)");
+		List<Integer> types = this.jdbc.queryForList("SELECT id FROM types", Integer.class);
+		LocalDate today = LocalDate.now();
+		int ownerId = nextId("owners");
+		int petId = nextId("pets");
+		int visitId = nextId("visits");
+		String telephone = null;
+		for (int i = 0; i < this.properties.getOwners(); i++, ownerId++) {
+			// generated numbers are already normalized
+			telephone = telephone(random, telephone);
+			owners.add(ownerId, pick(random, FIRST_NAMES), pickSkewed(random, LAST_NAMES),
+					(1 + random.nextInt(9999)) + " " + pick(random, STREETS), pick(random, CITIES), telephone,
+					telephone);
+			int petCount = (random.nextInt(200) == 0) ? 20 + random.nextInt(41)
+					: 1 + geometric(random, this.properties.getPetsPerOwner() - 1);
+			for (int p = 0; p < petCount; p++, petId++) {
+				pets.add(petId, pick(random, PET_NAMES), Date.valueOf(today.minusDays(random.nextInt(15 * 365))),
+						types.get(random.nextInt(types.size())), ownerId);
+				int visitCount = geometric(random, this.properties.getVisitsPerPet());
+				for (int v = 0; v < visitCount; v++, visitId++) {
+					visits.add(visitId, petId, Date.valueOf(today.minusDays(random.nextInt(10 * 365))),
+							pick(random, DESCRIPTIONS));
+				}
+			}
+			if (owners.size() >= this.properties.getBatchSize() || pets.size() >= this.properties.getBatchSize()
+					|| visits.size() >= this.properties.getBatchSize()) {
+				// parents first, to satisfy the foreign keys
+				owners.flush();
+				pets.flush();
+				visits.flush();
+			}
+			if ((i + 1) % 100_000 == 0) {
+				logger.info("Generated {} owners", i + 1);
+			}
+		}
+		owners.flush();
+		pets.flush();
+		visits.flush();
+	}
+
+	private int nextId(String table) {
+		Integer max = this.jdbc.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+		return (max != null) ? max + 1 : 1;
+	}
+
+	/**
+	 * Identity columns of H2 and HSQLDB do not move past explicitly inserted ids, unlike
+	 * MySQL auto-increment columns, so they are restarted after the generated rows.
+	 */
+	private void restartIdentities(String database) {
+		if (database.contains("H2") || database.contains("HSQL")) {
+			for (String table : TABLES) {
+				this.jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + nextId(table));
+			}
+		}
+	}
+
+	/**
+	 * Move the id sequences used by Hibernate (see
+	 * {@link org.springframework.samples.petclinic.model.BaseEntity BaseEntity}) past the
+	 * generated rows. MySQL emulates them with one-row tables.
+	 */
+	private void restartSequences(String database) {
+		for (int i = 0; i < TABLES.length; i++) {
+			int next = nextId(TABLES[i]);
+			if (database.contains("MySQL")) {
+				this.jdbc.update("UPDATE " + SEQUENCES[i] + " SET next_val = GREATEST(next_val, ?)", next);
+			}
+			else {
+				this.jdbc.execute("ALTER SEQUENCE " + SEQUENCES[i] + " RESTART WITH " + next);
+			}
+		}
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static String pickSkewed(Random random, String[] values) {
+		return values[(int) (values.length * Math.pow(random.nextDouble(), 2.5))];
+	}
+
+	/**
+	 * Return a North American telephone number, about as unique as real ones: one owner in
+	 * fifty shares the number of the previous owner, as members of a household would.
+	 */
+	private static String telephone(Random random, String previous) {
+		if (previous != null && random.nextInt(50) == 0) {
+			return previous;
+		}
+		return String.format("%d%02d%d%02d%04d", 2 + random.nextInt(8), random.nextInt(100), 2 + random.nextInt(8),
+				random.nextInt(100), random.nextInt(10000));
+	}
+
+	/**
+	 * Return a geometrically distributed number of events, 0 included, with the given
+	 * mean.
+	 */
+	private static int geometric(Random random, double mean) {
+		if (mean <= 0) {
+			return 0;
+		}
+		return (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - 1 / (mean + 1)));
+	}
+
+	/**
+	 * Rows waiting to be sent to the database in one JDBC batch.
+	 */
+	private class Batch {
+
+		private final String sql;
+
+		private final List<Object[]> rows = new ArrayList<>();
+
+		Batch(String sql) {
+			this.sql = sql;
+		}
+
+		void add(Object... row) {
+			this.rows.add(row);
+		}
+
+		int size() {
+			return this.rows.size();
+		}
+
+		void flush() {
+			if (!this.rows.isEmpty()) {
+				DataGenerator.this.jdbc.batchUpdate(this.sql, this.rows);
+				this.rows.clear();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the {@link DataGenerator}, bound from the <code>petclinic.generator</code>
+ * properties.
+ */
+@ConfigurationProperties("petclinic.generator")
+public class DataGeneratorProperties {
+
+	/**
+	 * Number of owners to add.
+	 */
+	private int owners = 1000;
+
+	/**
+	 * Average number of pets per owner. A small share of owners are breeders or shelters
+	 * with dozens of pets.
+	 */
+	private double petsPerOwner = 1.5;
+
+	/**
+	 * Average number of visits per pet.
+	 */
+	private double visitsPerPet = 4;
+
+	/**
+	 * Number of vets to add.
+	 */
+	private int vets = 50;
+
+	/**
+	 * Number of rows sent to the database in one JDBC batch.
+	 */
+	private int batchSize = 1000;
+
+	/**
+	 * Seed of the random generator, so that runs can be reproduced.
+	 */
+	private long seed = 42;
+
+	public int getOwners() {
+		return this.owners;
+	}
+
+	public void setOwners(int owners) {
+		this.owners = owners;
+	}
+
+	public double getPetsPerOwner() {
+		return this.petsPerOwner;
+	}
+
+	public void setPetsPerOwner(double petsPerOwner) {
+		this.petsPerOwner = petsPerOwner;
+	}
+
+	public double getVisitsPerPet() {
+		return this.visitsPerPet;
+	}
+
+	public void setVisitsPerPet(double visitsPerPet) {
+		this.visitsPerPet = visitsPerPet;
+	}
+
+	public int getVets() {
+		return this.vets;
+	}
+
+	public void setVets(int vets) {
+		this.vets = vets;
+	}
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+}
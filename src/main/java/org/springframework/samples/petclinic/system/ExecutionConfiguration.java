@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Opt-in execution modes of the requests, see {@link ExecutionProperties.Mode}. Every
+ * request blocks on JDBC, so handling more requests at once than the database can serve
+ * only moves the queue to the connection pool. The virtual and limited modes therefore
+ * cap the concurrent requests at a multiple of the connection pool size. For the same
+ * reason the <code>applicationTaskExecutor</code>, which serves the asynchronous JSON API,
+ * has as many threads as the pool has connections (see
+ * <code>spring.task.execution.pool</code>).
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ExecutionProperties.class)
+class ExecutionConfiguration {
+
+	private static final String MODE = "'${petclinic.execution.mode:platform}'";
+
+	private static final String LIMITED_OR_VIRTUAL = MODE + " matches '(?i)limited|virtual'";
+
+	private static final String VIRTUAL = MODE + " matches '(?i)virtual'";
+
+	@Bean
+	@ConditionalOnExpression(VIRTUAL)
+	public VirtualThreadsCustomizer virtualThreadsCustomizer() {
+		return new VirtualThreadsCustomizer(newVirtualThreadPerTaskExecutor());
+	}
+
+	@Bean
+	@ConditionalOnExpression(LIMITED_OR_VIRTUAL)
+	public ConcurrencyLimitFilter concurrencyLimitFilter(ExecutionProperties properties,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+		return new ConcurrencyLimitFilter(properties.maxConcurrentRequestsFor(connectionPoolSize),
+				properties.getQueueTimeout());
+	}
+
+	@Bean
+	@ConditionalOnExpression(LIMITED_OR_VIRTUAL)
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(
+			ConcurrencyLimitFilter concurrencyLimitFilter) {
+		return new FilterRegistrationBean<>(concurrencyLimitFilter);
+	}
+
+	/**
+	 * Carry the {@link ReplicaRoutingDataSource#setReadFromPrimary(boolean) read from
+	 * primary} flag of the request over to the task executor threads.
+	 * @return the decorator applied to the tasks of the <code>applicationTaskExecutor</code>
+	 */
+	@Bean
+	public TaskDecorator readFromPrimaryTaskDecorator() {
+		return (task) -> {
+			boolean readFromPrimary = ReplicaRoutingDataSource.isReadFromPrimary();
+			return () -> {
+				ReplicaRoutingDataSource.setReadFromPrimary(readFromPrimary);
+				try {
+					task.run();
+				}
+				finally {
+					ReplicaRoutingDataSource.setReadFromPrimary(false);
+				}
+			};
+		};
+	}
+
+	/**
+	 * Hands Tomcat an executor that starts a virtual thread per request. Tomcat does not
+	 * shut down an executor it did not create, so the executor is shut down with the
+	 * application context, after the web server has stopped.
+	 */
+	static class VirtualThreadsCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler>, DisposableBean {
+
+		private final ExecutorService executor;
+
+		VirtualThreadsCustomizer(ExecutorService executor) {
+			this.executor = executor;
+		}
+
+		@Override
+		public void customize(ProtocolHandler protocolHandler) {
+			protocolHandler.setExecutor(this.executor);
+		}
+
+		@Override
+		public void destroy() {
+			this.executor.shutdown();
+		}
+
+	}
+
+	/**
+	 * Create an executor that starts a virtual thread per task. The application is
+	 * compiled for Java 8, so the executor is looked up at runtime.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("petclinic.execution.mode=virtual requires Java 21 or later, use "
+					+ "petclinic.execution.mode=limited on " + System.getProperty("java.version"), ex);
+		}
+	}
+
+}
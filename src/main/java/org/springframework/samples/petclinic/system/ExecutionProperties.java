@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How requests are executed, bound from the <code>petclinic.execution</code> properties.
+ */
+@ConfigurationProperties("petclinic.execution")
+public class ExecutionProperties {
+
+	/**
+	 * Threads that handle requests.
+	 */
+	private Mode mode = Mode.PLATFORM;
+
+	/**
+	 * Maximum number of requests handled at the same time in the virtual and limited
+	 * modes. Defaults to twice the size of the connection pool, so that requests wait
+	 * here rather than for a connection.
+	 */
+	private Integer maxConcurrentRequests;
+
+	/**
+	 * Time a request waits for its turn before it is rejected with a 503 status.
+	 */
+	private Duration queueTimeout = Duration.ofSeconds(5);
+
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	public Integer getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	public void setMaxConcurrentRequests(Integer maxConcurrentRequests) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * Return the maximum number of concurrent requests for a connection pool of the given
+	 * size: the configured one, if any, or twice the size of the pool.
+	 * @param connectionPoolSize the maximum size of the primary connection pool
+	 * @return the maximum number of concurrent requests
+	 */
+	public int maxConcurrentRequestsFor(int connectionPoolSize) {
+		return (this.maxConcurrentRequests != null) ? this.maxConcurrentRequests : 2 * connectionPoolSize;
+	}
+
+	public Duration getQueueTimeout() {
+		return this.queueTimeout;
+	}
+
+	public void setQueueTimeout(Duration queueTimeout) {
+		this.queueTimeout = queueTimeout;
+	}
+
+	public enum Mode {
+
+		/**
+		 * Tomcat's own thread pool, without further limits.
+		 */
+		PLATFORM,
+
+		/**
+		 * Tomcat's own thread pool, with a limit of concurrent requests. This is not a
+		 * separate pool: a request over the limit waits on its Tomcat thread.
+		 */
+		LIMITED,
+
+		/**
+		 * A new virtual thread per request (Java 21 or later), with a limit of concurrent
+		 * requests.
+		 */
+		VIRTUAL
+
+	}
+
+}
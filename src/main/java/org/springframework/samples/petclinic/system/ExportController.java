@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerWithPets;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.vet.VetSummary;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Full exports of vets, owners with their pets, and visits, for reporting jobs. Rows are
+ * read from a database cursor in a read-only transaction and written to the response as
+ * they come, either as a JSON array or as newline-delimited JSON, so memory use does not
+ * depend on the size of the data set. The export runs on the task executor, like the
+ * rest of the JSON API.
+ */
+@Controller
+class ExportController {
+
+	private static final String NDJSON = "application/x-ndjson";
+
+	private final OwnerRepository owners;
+
+	private final VetRepository vets;
+
+	private final VisitRepository visits;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final ObjectWriter writer;
+
+	public ExportController(OwnerRepository owners, VetRepository vets, VisitRepository visits,
+			EntityManager entityManager, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+		this.owners = owners;
+		this.vets = vets;
+		this.visits = visits;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.objectMapper = objectMapper;
+		// the response is flushed by the servlet container as its buffer fills up
+		this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	@GetMapping(path = "/api/export/vets", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportVetsJson() {
+		return export(false, this::vets);
+	}
+
+	@GetMapping(path = "/api/export/vets", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> exportVetsNdjson() {
+		return export(true, this::vets);
+	}
+
+	@GetMapping(path = "/api/export/owners", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportOwnersJson() {
+		return export(false, this::owners);
+	}
+
+	@GetMapping(path = "/api/export/owners", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> exportOwnersNdjson() {
+		return export(true, this::owners);
+	}
+
+	@GetMapping(path = "/api/export/visits", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportVisitsJson() {
+		return export(false, this::visits);
+	}
+
+	@GetMapping(path = "/api/export/visits", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> exportVisitsNdjson() {
+		return export(true, this::visits);
+	}
+
+	private void vets(Consumer<Object> sink) {
+		try (Stream<VetSummary> rows = this.vets.streamSummaryRows()) {
+			mergeRows(rows, VetSummary::getId, VetSummary::merge, sink);
+		}
+	}
+
+	private void owners(Consumer<Object> sink) {
+		try (Stream<OwnerWithPets> rows = this.owners.streamAllWithPets()) {
+			mergeRows(rows, OwnerWithPets::getId, OwnerWithPets::merge, sink);
+		}
+	}
+
+	private void visits(Consumer<Object> sink) {
+		try (Stream<Visit> rows = this.visits.streamAll()) {
+			rows.forEach((visit) -> {
+				sink.accept(visit);
+				this.entityManager.detach(visit);
+			});
+		}
+	}
+
+	/**
+	 * Merge consecutive rows of the same id, as read by the one-row-per-child queries,
+	 * before handing them to the sink.
+	 */
+	private static <T> void mergeRows(Stream<T> rows, Function<T, Integer> id, BinaryOperator<T> merge,
+			Consumer<Object> sink) {
+		T current = null;
+		Iterator<T> iterator = rows.iterator();
+		while (iterator.hasNext()) {
+			T row = iterator.next();
+			if (current != null && id.apply(current).equals(id.apply(row))) {
+				current = merge.apply(current, row);
+			}
+			else {
+				if (current != null) {
+					sink.accept(current);
+				}
+				current = row;
+			}
+		}
+		if (current != null) {
+			sink.accept(current);
+		}
+	}
+
+	private ResponseEntity<StreamingResponseBody> export(boolean ndjson, Consumer<Consumer<Object>> query) {
+		StreamingResponseBody body = (outputStream) -> {
+			JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// lines are separated by hand, rather than by a space between root values
+			generator.setRootValueSeparator(null);
+			if (!ndjson) {
+				generator.writeStartArray();
+			}
+			this.transactionTemplate.executeWithoutResult((status) -> query.accept((row) -> {
+				try {
+					this.writer.writeValue(generator, row);
+					if (ndjson) {
+						generator.writeRaw('\n');
+					}
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}));
+			if (!ndjson) {
+				generator.writeEndArray();
+			}
+			generator.close();
+		};
+		return ResponseEntity.ok().contentType(ndjson ? MediaType.parseMediaType(NDJSON) : MediaType.APPLICATION_JSON)
+				.body(body);
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.samples.petclinic.model.VersionTag;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Output cache of rendered Thymeleaf fragments. A fragment is rendered once per
+ * {@link VersionTag version} of the data it shows, which has to include the locale, and
+ * the HTML is kept in the <code>fragments</code> cache; pages insert it unescaped with
+ * <code>th:utext</code>. Since the key changes with the data, entries never need to be
+ * evicted, they simply stop being used.
+ */
+@Component
+public class FragmentCache {
+
+	private final ITemplateEngine templateEngine;
+
+	private final Cache cache;
+
+	public FragmentCache(ITemplateEngine templateEngine, CacheManager cacheManager) {
+		this.templateEngine = templateEngine;
+		this.cache = cacheManager.getCache("fragments");
+	}
+
+	/**
+	 * Return the HTML of a fragment, rendering it if this version is not cached yet.
+	 * @param template the name of the template that defines the fragment
+	 * @param fragment the name of the fragment
+	 * @param version the version of everything the fragment shows, locale included
+	 * @param variables the variables used by the fragment
+	 * @param request the current request, for links
+	 * @return the rendered fragment
+	 */
+	public String render(String template, String fragment, VersionTag version, Map<String, Object> variables,
+			ServletWebRequest request) {
+		String key = template + "::" + fragment + "::" + version;
+		return this.cache.get(key, () -> {
+			WebContext context = new WebContext(request.getRequest(), request.getResponse(),
+					request.getRequest().getServletContext(), LocaleContextHolder.getLocale(), variables);
+			return this.templateEngine.process(template, Collections.singleton(fragment), context);
+		});
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Answers with a 409 status when an edit is based on an outdated or missing version of
+ * the entity (see {@link org.springframework.samples.petclinic.model.BaseEntity}), so that
+ * the user reloads the form instead of overwriting someone else's changes.
+ */
+@ControllerAdvice
+class OptimisticLockingFailureHandler {
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(code = HttpStatus.CONFLICT, reason = "The data was changed in the meantime, reload it")
+	public void handleOptimisticLockingFailure() {
+	}
+
+}
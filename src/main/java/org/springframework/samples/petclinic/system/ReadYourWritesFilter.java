@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Lets a client read its own writes despite the replication lag: a request that is not a
+ * <code>GET</code> or <code>HEAD</code> sets a short-lived cookie, and requests that
+ * carry it read from the primary database instead of a replica.
+ *
+ * @see ReplicaRoutingDataSource#setReadFromPrimary(boolean)
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	static final String COOKIE_NAME = "petclinic-read-primary";
+
+	private final Duration duration;
+
+	ReadYourWritesFilter(Duration duration) {
+		this.duration = duration;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		boolean write = !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+		if (write) {
+			Cookie cookie = new Cookie(COOKIE_NAME, "1");
+			cookie.setPath("/");
+			cookie.setHttpOnly(true);
+			cookie.setMaxAge((int) this.duration.getSeconds());
+			response.addCookie(cookie);
+		}
+		ReplicaRoutingDataSource.setReadFromPrimary(write || WebUtils.getCookie(request, COOKIE_NAME) != null);
+		try {
+			chain.doFilter(request, response);
+		}
+		finally {
+			ReplicaRoutingDataSource.setReadFromPrimary(false);
+		}
+	}
+
+}
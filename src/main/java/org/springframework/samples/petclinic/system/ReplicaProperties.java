@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read replicas of the database, bound from the
+ * <code>petclinic.datasource.replicas</code> properties. Replicas share the user name,
+ * password and driver of the primary <code>spring.datasource</code>.
+ */
+@ConfigurationProperties("petclinic.datasource.replicas")
+public class ReplicaProperties {
+
+	/**
+	 * JDBC URLs of the replicas. Read-only transactions are spread over them in turn.
+	 */
+	private List<String> urls = new ArrayList<>();
+
+	/**
+	 * Maximum number of connections in the pool of each replica.
+	 */
+	private int maximumPoolSize = 10;
+
+	/**
+	 * Time between two health checks of the replicas.
+	 */
+	private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+	/**
+	 * Time during which a client reads from the primary after it sent a write request, so
+	 * that it sees its own writes despite the replication lag. Disabled if not set.
+	 */
+	private Duration readYourWrites;
+
+	public List<String> getUrls() {
+		return this.urls;
+	}
+
+	public void setUrls(List<String> urls) {
+		this.urls = urls;
+	}
+
+	public int getMaximumPoolSize() {
+		return this.maximumPoolSize;
+	}
+
+	public void setMaximumPoolSize(int maximumPoolSize) {
+		this.maximumPoolSize = maximumPoolSize;
+	}
+
+	public Duration getHealthCheckInterval() {
+		return this.healthCheckInterval;
+	}
+
+	public void setHealthCheckInterval(Duration healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval;
+	}
+
+	public Duration getReadYourWrites() {
+		return this.readYourWrites;
+	}
+
+	public void setReadYourWrites(Duration readYourWrites) {
+		this.readYourWrites = readYourWrites;
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+/**
+ * Routes read-only transactions to the read replicas listed in
+ * <code>petclinic.datasource.replicas.urls</code>, if any. The primary database is still
+ * configured with the <code>spring.datasource</code> properties.
+ *
+ * @see ReplicaRoutingDataSource
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "petclinic.datasource.replicas", name = "urls")
+@EnableConfigurationProperties(ReplicaProperties.class)
+class ReplicaRoutingConfiguration {
+
+	@Bean
+	@Primary
+	public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, ReplicaProperties replicaProperties,
+			Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+		// the primary pool is not a bean of its own, so that it is not mistaken for the
+		// application data source, but it is configured the same way
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		primary.setPoolName("primary");
+		meterRegistry.ifAvailable(primary::setMetricRegistry);
+		List<DataSource> replicas = new ArrayList<>();
+		for (String url : replicaProperties.getUrls()) {
+			HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url)
+					.build();
+			Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+			replica.setPoolName("replica-" + (replicas.size() + 1));
+			replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+			replica.setReadOnly(true);
+			meterRegistry.ifAvailable(replica::setMetricRegistry);
+			replicas.add(replica);
+		}
+		return new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getHealthCheckInterval());
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "petclinic.datasource.replicas", name = "read-your-writes")
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaProperties replicaProperties) {
+		return new FilterRegistrationBean<>(new ReadYourWritesFilter(replicaProperties.getReadYourWrites()));
+	}
+
+}
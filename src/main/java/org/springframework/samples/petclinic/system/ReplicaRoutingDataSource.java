@@ -0,0 +1,229 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link DataSource} that sends read-only transactions to read replicas and everything
+ * else to the primary database.
+ * <p>
+ * The choice is made when the transaction runs its first statement, once it is known to
+ * be read-only: the connection is obtained lazily, as with a
+ * {@link LazyConnectionDataSourceProxy}. Replicas are used in turn. A replica that fails
+ * to hand out a connection or its periodic health check is skipped until it passes a
+ * health check again, and reads fall back to the primary when no replica is available.
+ * Reads of the current thread can also be pinned to the primary with
+ * {@link #setReadFromPrimary(boolean)}, see {@link ReadYourWritesFilter}.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	private static final ThreadLocal<Boolean> readFromPrimary = new ThreadLocal<>();
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas = new ArrayList<>();
+
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	private final ScheduledExecutorService healthChecks;
+
+	/**
+	 * Create a new instance and start checking the health of the replicas. The primary
+	 * and the replicas are closed with this data source if they are {@link Closeable}.
+	 * @param primary the primary database
+	 * @param replicas the read replicas
+	 * @param healthCheckInterval the time between two health checks of the replicas
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration healthCheckInterval) {
+		this.primary = primary;
+		for (int i = 0; i < replicas.size(); i++) {
+			this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+		}
+		setTargetDataSource(new Router());
+		// read the default auto-commit and isolation from the primary right away, rather
+		// than from whichever connection a transaction would obtain first
+		afterPropertiesSet();
+		this.healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-health-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.healthChecks.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Pin the reads of the current thread to the primary database, or release them.
+	 * @param primary whether reads should go to the primary
+	 */
+	public static void setReadFromPrimary(boolean primary) {
+		if (primary) {
+			readFromPrimary.set(Boolean.TRUE);
+		}
+		else {
+			readFromPrimary.remove();
+		}
+	}
+
+	/**
+	 * Return whether the reads of the current thread are pinned to the primary database.
+	 * @return whether reads go to the primary
+	 */
+	public static boolean isReadFromPrimary() {
+		return readFromPrimary.get() != null;
+	}
+
+	/**
+	 * Return the data sources of the primary and of the replicas.
+	 * @return the data sources, primary first
+	 */
+	List<DataSource> getPools() {
+		List<DataSource> pools = new ArrayList<>();
+		pools.add(this.primary);
+		for (Replica replica : this.replicas) {
+			pools.add(replica.dataSource);
+		}
+		return pools;
+	}
+
+	void checkReplicas() {
+		for (Replica replica : this.replicas) {
+			replica.check();
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		this.healthChecks.shutdownNow();
+		for (Replica replica : this.replicas) {
+			close(replica.dataSource);
+		}
+		close(this.primary);
+	}
+
+	private static void close(DataSource dataSource) throws IOException {
+		if (dataSource instanceof Closeable) {
+			((Closeable) dataSource).close();
+		}
+	}
+
+	private Replica nextAvailableReplica() {
+		int count = this.replicas.size();
+		int start = Math.floorMod(this.nextReplica.getAndIncrement(), Math.max(count, 1));
+		for (int i = 0; i < count; i++) {
+			Replica replica = this.replicas.get((start + i) % count);
+			if (replica.available) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	private boolean isReplicaRead() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && readFromPrimary.get() == null;
+	}
+
+	/**
+	 * The actual target of the lazy connections.
+	 */
+	private class Router extends AbstractDataSource {
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (isReplicaRead()) {
+				Replica replica;
+				while ((replica = nextAvailableReplica()) != null) {
+					try {
+						return replica.dataSource.getConnection();
+					}
+					catch (SQLException ex) {
+						replica.markUnavailable(ex);
+					}
+				}
+			}
+			return ReplicaRoutingDataSource.this.primary.getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return ReplicaRoutingDataSource.this.primary.getConnection(username, password);
+		}
+
+	}
+
+	private static class Replica {
+
+		private final String name;
+
+		private final DataSource dataSource;
+
+		private volatile boolean available = true;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		void check() {
+			try (Connection connection = this.dataSource.getConnection()) {
+				if (connection.isValid(2)) {
+					if (!this.available) {
+						logger.info("{} is available again", this.name);
+					}
+					this.available = true;
+				}
+				else {
+					markUnavailable(null);
+				}
+			}
+			catch (SQLException ex) {
+				markUnavailable(ex);
+			}
+		}
+
+		void markUnavailable(SQLException ex) {
+			if (this.available) {
+				logger.warn("{} is unavailable, reading from other replicas or the primary", this.name, ex);
+			}
+			this.available = false;
+		}
+
+	}
+
+}
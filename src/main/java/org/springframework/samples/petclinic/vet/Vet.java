@@ -17,20 +17,19 @@ package org.springframework.samples.petclinic.vet;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlElement;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.samples.petclinic.model.Person;
 
 /**
@@ -45,31 +44,51 @@ import org.springframework.samples.petclinic.model.Person;
 @Table(name = "vets")
 public class Vet extends Person {
 
-	@ManyToMany(fetch = FetchType.EAGER)
+	private static final Comparator<Specialty> BY_NAME = Comparator.comparing(Specialty::getName,
+			Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+	/**
+	 * Loaded lazily: {@link VetRepository#findAll()} fetches them with the vets.
+	 */
+	@ManyToMany
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
 	private Set<Specialty> specialties;
 
+	/**
+	 * The specialties sorted by name, kept until the specialties change.
+	 */
+	@Transient
+	private transient List<Specialty> sortedSpecialties;
+
 	protected Set<Specialty> getSpecialtiesInternal() {
 		if (this.specialties == null) {
 			this.specialties = new HashSet<>();
 		}
+		// the caller may change the specialties
+		this.sortedSpecialties = null;
 		return this.specialties;
 	}
 
 	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
 		this.specialties = specialties;
+		this.sortedSpecialties = null;
 	}
 
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedSpecs);
+		List<Specialty> sorted = this.sortedSpecialties;
+		if (sorted == null) {
+			sorted = new ArrayList<>(getSpecialtiesInternal());
+			sorted.sort(BY_NAME);
+			sorted = Collections.unmodifiableList(sorted);
+			this.sortedSpecialties = sorted;
+		}
+		return sorted;
 	}
 
 	public int getNrOfSpecialties() {
-		return getSpecialtiesInternal().size();
+		return getSpecialties().size();
 	}
 
 	public void addSpecialty(Specialty specialty) {
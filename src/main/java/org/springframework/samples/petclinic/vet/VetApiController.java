@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Read-only JSON API of vets. Like the owners API, requests are handled on the task
+ * executor rather than on the servlet thread, and vets are read as cached summaries.
+ */
+@Controller
+class VetApiController {
+
+	private final VetRepository vets;
+
+	private final TaskExecutor executor;
+
+	public VetApiController(VetRepository vets, TaskExecutor executor) {
+		this.vets = vets;
+		this.executor = executor;
+	}
+
+	@GetMapping("/api/vets")
+	public @ResponseBody CompletableFuture<List<VetSummary>> showVets() {
+		return CompletableFuture.supplyAsync(this.vets::findAllSummaries, this.executor);
+	}
+
+}
@@ -15,13 +15,25 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import org.springframework.samples.petclinic.model.VersionTag;
+import org.springframework.samples.petclinic.system.FragmentCache;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
+ * Both handlers answer a request whose <code>If-None-Match</code> header matches the
+ * versions of the vets with a 304 status, before rendering the page or serializing the
+ * vets.
+ *
  * @author Juergen Hoeller
  * @author Mark Fisher
  * @author Ken Krebs
@@ -32,26 +44,47 @@ class VetController {
 
 	private final VetRepository vets;
 
-	public VetController(VetRepository clinicService) {
+	private final FragmentCache fragments;
+
+	public VetController(VetRepository clinicService, FragmentCache fragments) {
 		this.vets = clinicService;
+		this.fragments = fragments;
 	}
 
 	@GetMapping("/vets.html")
-	public String showVetList(Map<String, Object> model) {
-		// Here we are returning an object of type 'Vets' rather than a collection of Vet
-		// objects so it is simpler for Object-Xml mapping
-		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vets.findAll());
-		model.put("vets", vets);
+	public String showVetList(ServletWebRequest request, Locale locale, Map<String, Object> model) {
+		// The page only shows names, so it is rendered from summaries rather than
+		// entities
+		List<VetSummary> summaries = this.vets.findAllSummaries();
+		VersionTag tag = new VersionTag().add(locale);
+		for (VetSummary vet : summaries) {
+			// a specialty can be renamed without a new version of the vet
+			tag.add(vet.getId()).add(vet.getVersion()).add(vet.getSpecialties());
+		}
+		if (request.checkNotModified(tag.toString())) {
+			return null;
+		}
+		// the table is rendered once per version of the vets
+		model.put("vetTable", this.fragments.render("vets/vetTable", "vetTable", tag,
+				Collections.singletonMap("vets", summaries), request));
 		return "vets/vetList";
 	}
 
 	@GetMapping({ "/vets" })
-	public @ResponseBody Vets showResourcesVetList() {
+	public @ResponseBody Vets showResourcesVetList(WebRequest request) {
+		Collection<Vet> all = this.vets.findAll();
+		VersionTag tag = new VersionTag();
+		for (Vet vet : all) {
+			tag.add(vet);
+			vet.getSpecialties().forEach(tag::add);
+		}
+		if (request.checkNotModified(tag.toString())) {
+			return null;
+		}
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for JSon/Object mapping
 		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vets.findAll());
+		vets.getVetList().addAll(all);
 		return vets;
 	}
 
@@ -15,10 +15,19 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,11 +45,51 @@ import org.springframework.transaction.annotation.Transactional;
 public interface VetRepository extends Repository<Vet, Integer> {
 
 	/**
-	 * Retrieve all <code>Vet</code>s from the data store.
+	 * Retrieve all <code>Vet</code>s from the data store, with their specialties, in a
+	 * single statement whatever the number of vets.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
+	@Query("SELECT DISTINCT vet FROM Vet vet left join fetch vet.specialties")
+	@QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
+	/**
+	 * Retrieve the {@link VetSummary summaries} of all <code>Vet</code>s, for the vets
+	 * page. They are served from the <code>vetSummaries</code> cache.
+	 * @return a <code>List</code> of {@link VetSummary summaries}
+	 */
+	@Cacheable("vetSummaries")
+	default List<VetSummary> findAllSummaries() {
+		Map<Integer, VetSummary> summaries = new LinkedHashMap<>();
+		for (VetSummary row : findSummaryRows()) {
+			summaries.merge(row.getId(), row, VetSummary::merge);
+		}
+		return new ArrayList<>(summaries.values());
+	}
+
+	/**
+	 * Retrieve one {@link VetSummary} per specialty of every <code>Vet</code> (one
+	 * without specialties for vets without any), ordered by id and specialty name.
+	 * @return the rows
+	 * @see #findAllSummaries
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.vet.VetSummary(vet.id, vet.version, vet.firstName,"
+			+ " vet.lastName, specialty.name) FROM Vet vet left join vet.specialties specialty"
+			+ " ORDER BY vet.id, specialty.name")
+	@Transactional(readOnly = true)
+	List<VetSummary> findSummaryRows();
+
+	/**
+	 * Stream the same rows as {@link #findSummaryRows()}, fetched from a cursor. The
+	 * stream must be consumed, and closed, within a transaction.
+	 * @return the rows
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.vet.VetSummary(vet.id, vet.version, vet.firstName,"
+			+ " vet.lastName, specialty.name) FROM Vet vet left join vet.specialties specialty"
+			+ " ORDER BY vet.id, specialty.name")
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	Stream<VetSummary> streamSummaryRows();
+
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of a {@link Vet} for the vets page: its name and the names of its
+ * specialties. It is read with a scalar query, one row per specialty, so it carries no
+ * entity state and is cheap to copy in and out of the cache.
+ *
+ * @see VetRepository#findAllSummaries
+ */
+public class VetSummary implements Serializable {
+
+	private final Integer id;
+
+	private final Integer version;
+
+	private final String firstName;
+
+	private final String lastName;
+
+	private final List<String> specialties = new ArrayList<>();
+
+	public VetSummary(Integer id, Integer version, String firstName, String lastName, String specialty) {
+		this.id = id;
+		this.version = version;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		if (specialty != null) {
+			this.specialties.add(specialty);
+		}
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public List<String> getSpecialties() {
+		return Collections.unmodifiableList(this.specialties);
+	}
+
+	/**
+	 * Add the specialties of another row of the same vet to this one.
+	 * @param other a row of the same vet
+	 * @return this summary
+	 */
+	public VetSummary merge(VetSummary other) {
+		this.specialties.addAll(other.specialties);
+		return this;
+	}
+
+}
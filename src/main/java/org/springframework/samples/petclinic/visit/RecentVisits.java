@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom part of the {@link VisitRepository}, implemented by {@link RecentVisitsImpl}.
+ */
+public interface RecentVisits {
+
+	/**
+	 * Retrieve the most recent <code>Visit</code>s of each of the given pets with a
+	 * single statement. Each pet costs a short scan of the <code>(pet_id,
+	 * visit_date)</code> index, however long its history.
+	 * @param petIds the ids of the pets whose visits should be loaded
+	 * @param limit the maximum number of visits per pet
+	 * @return the matching <code>Visit</code>s, ordered by pet id, most recent first
+	 */
+	List<Visit> findRecentByPetIdIn(Collection<Integer> petIds, int limit);
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * Implementation of {@link RecentVisits}. JPQL has no union and no per-group limit, and
+ * MySQL 5.7 has no window functions, so the query is native SQL: one limited select per
+ * pet, joined with <code>UNION ALL</code>, which H2, HSQLDB and MySQL all accept.
+ * <p>
+ * The number of selects is rounded up to a power of two, padding with an id no pet has,
+ * so that owners with similar numbers of pets share the same statement text and thus the
+ * same cached query plan and prepared statement.
+ */
+class RecentVisitsImpl implements RecentVisits {
+
+	private static final int NO_PET = -1;
+
+	private final EntityManager entityManager;
+
+	RecentVisitsImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Visit> findRecentByPetIdIn(Collection<Integer> petIds, int limit) {
+		if (petIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		int selects = Math.max(2, Integer.highestOneBit(petIds.size() - 1) << 1);
+		StringBuilder sql = new StringBuilder();
+		for (int i = 1; i <= selects; i++) {
+			if (i > 1) {
+				sql.append(" UNION ALL ");
+			}
+			sql.append("(SELECT id, pet_id, visit_date, description, version FROM visits WHERE pet_id = ?").append(i)
+					.append(" ORDER BY visit_date DESC, id DESC LIMIT ").append(limit).append(")");
+		}
+		sql.append(" ORDER BY pet_id, visit_date DESC, id DESC");
+		Query query = this.entityManager.createNativeQuery(sql.toString(), Visit.class);
+		int position = 1;
+		for (Integer petId : petIds) {
+			query.setParameter(position++, petId);
+		}
+		while (position <= selects) {
+			query.setParameter(position++, NO_PET);
+		}
+		return query.getResultList();
+	}
+
+}
@@ -16,12 +16,15 @@
 package org.springframework.samples.petclinic.visit;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.validation.constraints.NotEmpty;
 
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
@@ -77,4 +80,14 @@ public class Visit extends BaseEntity {
 		this.petId = petId;
 	}
 
+	/**
+	 * Return the events published when this visit is saved through
+	 * {@link VisitRepository}.
+	 * @return a {@link VisitSaved} event
+	 */
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return Collections.singletonList(new VisitSaved(getId(), getDescription()));
+	}
+
 }
@@ -15,10 +15,20 @@
  */
 package org.springframework.samples.petclinic.visit;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
 /**
@@ -32,7 +42,7 @@ import org.springframework.samples.petclinic.model.BaseEntity;
  * @author Sam Brannen
  * @author Michael Isvy
  */
-public interface VisitRepository extends Repository<Visit, Integer> {
+public interface VisitRepository extends Repository<Visit, Integer>, RecentVisits {
 
 	/**
 	 * Save a <code>Visit</code> to the data store, either inserting or updating it.
@@ -41,6 +51,53 @@ public interface VisitRepository extends Repository<Visit, Integer> {
 	 */
 	void save(Visit visit) throws DataAccessException;
 
+	/**
+	 * Save several <code>Visit</code>s to the data store in one transaction, so that
+	 * their inserts are sent in JDBC batches.
+	 * @param visits the <code>Visit</code>s to save
+	 * @return the saved <code>Visit</code>s
+	 */
+	<S extends Visit> List<S> saveAll(Iterable<S> visits) throws DataAccessException;
+
 	List<Visit> findByPetId(Integer petId);
 
+	/**
+	 * Retrieve one page of the {@link VisitSummary summaries} of the <code>Visit</code>s
+	 * of a pet between two dates, both included, most recent first. The visits are read
+	 * from the <code>(pet_id, visit_date)</code> index, so the cost of a page does not grow
+	 * with the history of the pet.
+	 * @param petId the id of the pet
+	 * @param from the earliest date
+	 * @param to the latest date
+	 * @param pageable the page to return
+	 * @return the matching {@link VisitSummary summaries}
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.visit.VisitSummary(visit.id, visit.date,"
+			+ " visit.description) FROM Visit visit WHERE visit.petId = :petId AND visit.date BETWEEN :from AND :to"
+			+ " ORDER BY visit.date DESC, visit.id DESC")
+	Slice<VisitSummary> findSummariesByPetIdAndDateBetween(@Param("petId") Integer petId, @Param("from") LocalDate from,
+			@Param("to") LocalDate to, Pageable pageable);
+
+	/**
+	 * Retrieve the <code>Visit</code>s with the given ids, with their pet and owner, for
+	 * the results of the full-text search.
+	 * @param ids the ids of the visits to load
+	 * @return the matching {@link VisitSearchResult results}, in no particular order
+	 * @see VisitSearchIndex
+	 */
+	@Query("SELECT new org.springframework.samples.petclinic.visit.VisitSearchResult(visit.id, visit.date,"
+			+ " visit.description, pet.id, pet.name, owner.id, owner.firstName, owner.lastName)"
+			+ " FROM Visit visit, Pet pet join pet.owner owner WHERE pet.id = visit.petId AND visit.id IN :ids")
+	List<VisitSearchResult> findSearchResultsByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Stream all <code>Visit</code>s, ordered by id and fetched from a cursor. The stream
+	 * must be consumed, and closed, within a transaction, and callers should detach the
+	 * visits they are done with so that the persistence context does not grow.
+	 * @return the <code>Visit</code>s
+	 */
+	@Query("SELECT visit FROM Visit visit ORDER BY visit.id")
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	Stream<Visit> streamAll();
+
 }
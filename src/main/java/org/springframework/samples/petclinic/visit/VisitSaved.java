@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+/**
+ * Event published when a {@link Visit} is saved through {@link VisitRepository#save} or
+ * {@link VisitRepository#saveAll}, once the transaction commits.
+ *
+ * @see VisitSearchIndex
+ */
+class VisitSaved {
+
+	private final Integer id;
+
+	private final String description;
+
+	VisitSaved(Integer id, String description) {
+		this.id = id;
+		this.description = description;
+	}
+
+	Integer getId() {
+		return this.id;
+	}
+
+	String getDescription() {
+		return this.description;
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * JSON API of the full-text search of visits. The visits, with their pets and owners,
+ * are returned most relevant first, one page at a time; the URI of the next page, if
+ * any, is sent in a <code>Link</code> header. Like the rest of the JSON API, the search
+ * runs on the task executor.
+ */
+@Controller
+class VisitSearchController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	/**
+	 * Deepest result that can be paged to: each page is scored from the first hit.
+	 */
+	private static final int MAX_RESULTS = 10000;
+
+	private final VisitSearchIndex index;
+
+	private final VisitRepository visits;
+
+	private final TaskExecutor executor;
+
+	public VisitSearchController(VisitSearchIndex index, VisitRepository visits, TaskExecutor executor) {
+		this.index = index;
+		this.visits = visits;
+		this.executor = executor;
+	}
+
+	@GetMapping("/api/visits/search")
+	public CompletableFuture<ResponseEntity<List<VisitSearchResult>>> search(@RequestParam("q") String text,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		int pageNumber = Math.max(0, Math.min(page, MAX_RESULTS / pageSize - 1));
+		// the request is only bound to the servlet thread
+		UriComponentsBuilder nextPage = ServletUriComponentsBuilder.fromCurrentRequestUri().queryParam("q", text)
+				.queryParam("size", pageSize).queryParam("page", pageNumber + 1);
+		return CompletableFuture.supplyAsync(() -> {
+			Slice<VisitSearchIndex.Hit> hits = this.index.search(text, PageRequest.of(pageNumber, pageSize));
+			List<VisitSearchResult> results = load(hits.getContent());
+			ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+			if (hits.hasNext() && (pageNumber + 1) * pageSize < MAX_RESULTS) {
+				String uri = nextPage.build().encode().toUriString();
+				response.header(HttpHeaders.LINK, "<" + uri + ">; rel=\"next\"");
+			}
+			return response.body(results);
+		}, this.executor);
+	}
+
+	/**
+	 * Load the visits of the given hits with their pets and owners, in the order of the
+	 * hits. Visits deleted since they were indexed are left out.
+	 */
+	private List<VisitSearchResult> load(List<VisitSearchIndex.Hit> hits) {
+		if (hits.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<Integer> ids = new ArrayList<>(hits.size());
+		for (VisitSearchIndex.Hit hit : hits) {
+			ids.add(hit.getVisitId());
+		}
+		Map<Integer, VisitSearchResult> byId = new HashMap<>();
+		for (VisitSearchResult result : this.visits.findSearchResultsByIdIn(ids)) {
+			byId.put(result.getVisitId(), result);
+		}
+		List<VisitSearchResult> results = new ArrayList<>(hits.size());
+		for (VisitSearchIndex.Hit hit : hits) {
+			VisitSearchResult result = byId.get(hit.getVisitId());
+			if (result != null) {
+				result.setScore(hit.getScore());
+				results.add(result);
+			}
+		}
+		return results;
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint that shows the size of the {@link VisitSearchIndex} and rebuilds it
+ * from the database:
+ *
+ * <pre class="code">
+ * GET  /actuator/visitsearch
+ * POST /actuator/visitsearch
+ * </pre>
+ *
+ * The rebuild runs in the background, on the thread of the index: the write operation
+ * returns as soon as it is scheduled. Searches see the previous content of the index
+ * until the rebuild is complete.
+ */
+@Component
+@Endpoint(id = "visitsearch")
+public class VisitSearchEndpoint {
+
+	private final VisitSearchIndex index;
+
+	VisitSearchEndpoint(VisitSearchIndex index) {
+		this.index = index;
+	}
+
+	@ReadOperation
+	public Map<String, Object> size() {
+		Map<String, Object> state = new LinkedHashMap<>();
+		state.put("visits", this.index.size());
+		state.put("rebuilding", this.index.isRebuilding());
+		return state;
+	}
+
+	@WriteOperation
+	public Map<String, Object> rebuild() {
+		this.index.rebuildInBackground();
+		return size();
+	}
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Embedded Lucene index of the visit descriptions, for the full-text search of visits.
+ * <p>
+ * Visits are indexed from the {@link VisitSaved} events of {@link VisitRepository} once
+ * their transaction commits, and become searchable after
+ * <code>petclinic.visits.search.refresh-interval</code> (near-real-time search). The
+ * index is committed to its directory on local disk every
+ * <code>petclinic.visits.search.commit-interval</code>, and when the application stops.
+ * <p>
+ * It is read from the database in the background once the application is ready, when
+ * <code>petclinic.visits.search.rebuild-on-start</code> is set, or when the index in
+ * <code>petclinic.visits.search.directory</code> was not committed from the same database
+ * (its URL is kept with each commit). It can be rebuilt at any time with
+ * {@link #rebuildInBackground()}, see {@link VisitSearchEndpoint}. Searches keep seeing
+ * the previous content until a rebuild is complete. Visits written by other means, such as
+ * the <code>DataGenerator</code>, are only found after a rebuild.
+ * <p>
+ * An index that is rebuilt at every start is kept in a temporary directory of its own
+ * unless a directory is set, so that several instances on the same host do not share it.
+ */
+@Component
+@EnableConfigurationProperties(VisitSearchProperties.class)
+public class VisitSearchIndex implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(VisitSearchIndex.class);
+
+	private static final String ID = "id";
+
+	private static final String DESCRIPTION = "description";
+
+	/**
+	 * Key of the database URL in the user data of the index commits.
+	 */
+	private static final String DATABASE = "database";
+
+	private final VisitRepository visits;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Analyzer analyzer = new EnglishAnalyzer();
+
+	private final Path temporaryDirectory;
+
+	private final Directory directory;
+
+	private final String database;
+
+	private final boolean rebuildOnStart;
+
+	/**
+	 * Whether a rebuild is running, during which the index is neither refreshed nor
+	 * committed, so that searches do not see it half empty.
+	 */
+	private volatile boolean rebuilding;
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searcherManager;
+
+	private final ScheduledExecutorService scheduler;
+
+	public VisitSearchIndex(VisitRepository visits, EntityManager entityManager,
+			PlatformTransactionManager transactionManager, VisitSearchProperties properties,
+			@Value("${spring.datasource.url:}") String database) throws IOException {
+		this.visits = visits;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		Path path = properties.getDirectory();
+		if (path == null) {
+			if (!properties.isRebuildOnStart()) {
+				throw new IllegalStateException("petclinic.visits.search.directory must be set, unless "
+						+ "petclinic.visits.search.rebuild-on-start is");
+			}
+			path = Files.createTempDirectory("petclinic-visit-index");
+		}
+		this.temporaryDirectory = (properties.getDirectory() == null) ? path : null;
+		this.directory = FSDirectory.open(path);
+		this.database = database;
+		String indexedDatabase = DirectoryReader.indexExists(this.directory)
+				? SegmentInfos.readLatestCommit(this.directory).getUserData().get(DATABASE) : null;
+		if (!properties.isRebuildOnStart() && indexedDatabase != null && !indexedDatabase.equals(database)) {
+			logger.info("The visit search index in {} was built from another database, rebuilding it", path);
+		}
+		this.rebuildOnStart = properties.isRebuildOnStart() || !database.equals(indexedDatabase);
+		this.writer = new IndexWriter(this.directory, new IndexWriterConfig(this.analyzer));
+		if (!this.rebuildOnStart) {
+			this.writer.setLiveCommitData(Collections.singletonMap(DATABASE, database).entrySet());
+		}
+		this.searcherManager = new SearcherManager(this.writer, null);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "visit-search-index");
+			thread.setDaemon(true);
+			return thread;
+		});
+		schedule(this::refresh, properties.getRefreshInterval());
+		schedule(this::commit, properties.getCommitInterval());
+	}
+
+	private void schedule(Runnable task, Duration interval) {
+		this.scheduler.scheduleWithFixedDelay(task, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Read the index from the database if needed, once the application is ready.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildIfNeeded() {
+		if (this.rebuildOnStart) {
+			rebuildInBackground();
+		}
+	}
+
+	/**
+	 * Run {@link #rebuild()} on the thread of the index rather than on the calling
+	 * thread, as it takes time in proportion to the number of visits.
+	 */
+	public void rebuildInBackground() {
+		this.scheduler.execute(() -> {
+			try {
+				rebuild();
+			}
+			catch (RuntimeException ex) {
+				logger.error("Cannot build the visit search index", ex);
+			}
+		});
+	}
+
+	/**
+	 * Return whether the index is read from the database when the application is ready.
+	 * @return whether the index is rebuilt at start
+	 */
+	boolean isRebuildOnStart() {
+		return this.rebuildOnStart;
+	}
+
+	/**
+	 * Return whether a rebuild is running.
+	 * @return whether the index is being rebuilt
+	 */
+	public boolean isRebuilding() {
+		return this.rebuilding;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVisitSaved(VisitSaved event) {
+		index(event.getId(), event.getDescription());
+	}
+
+	/**
+	 * Replace the content of the index with the visits of the database. Visits are read
+	 * from a cursor, so the memory used does not depend on their number. Until the new
+	 * content is complete, searches see the previous one; it is then committed and made
+	 * searchable at once. If the rebuild fails, what was read so far is kept, and the
+	 * rebuild should be run again; it is run again at the next start in any case.
+	 * @return the number of indexed visits
+	 */
+	public synchronized long rebuild() {
+		long start = System.nanoTime();
+		long count;
+		this.rebuilding = true;
+		try {
+			// a partial index is committed without the database, so that it is not kept
+			this.writer.setLiveCommitData(Collections.<String, String>emptyMap().entrySet());
+			this.writer.deleteAll();
+			count = this.transactionTemplate.execute(status -> {
+				long indexed = 0;
+				try (Stream<Visit> rows = this.visits.streamAll()) {
+					for (Iterator<Visit> iterator = rows.iterator(); iterator.hasNext();) {
+						Visit visit = iterator.next();
+						index(visit.getId(), visit.getDescription());
+						this.entityManager.detach(visit);
+						indexed++;
+					}
+				}
+				return indexed;
+			});
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		finally {
+			this.rebuilding = false;
+		}
+		this.writer.setLiveCommitData(Collections.singletonMap(DATABASE, this.database).entrySet());
+		commit();
+		refresh();
+		logger.info("Indexed {} visits in {} ms", count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return count;
+	}
+
+	/**
+	 * Find the visits whose description contains all the given words, most relevant
+	 * first. Words are matched by their stem, so that "vaccines" finds "vaccinated".
+	 * Quoted phrases, a trailing <code>*</code> for a prefix, <code>|</code> for
+	 * alternatives and a leading <code>-</code> to exclude a word are also supported.
+	 * @param text the words to look for
+	 * @param pageable the page of visits to return
+	 * @return the ids of the matching visits and their scores
+	 */
+	public Slice<Hit> search(String text, Pageable pageable) {
+		SimpleQueryParser parser = new SimpleQueryParser(this.analyzer, DESCRIPTION);
+		parser.setDefaultOperator(BooleanClause.Occur.MUST);
+		Query query = parser.parse(text);
+		int from = (int) pageable.getOffset();
+		int to = from + pageable.getPageSize();
+		try {
+			IndexSearcher searcher = this.searcherManager.acquire();
+			try {
+				// one more to know if there is a next page
+				TopDocs top = searcher.search(query, to + 1);
+				List<Hit> hits = new ArrayList<>();
+				for (int i = from; i < Math.min(to, top.scoreDocs.length); i++) {
+					ScoreDoc scoreDoc = top.scoreDocs[i];
+					Document document = searcher.doc(scoreDoc.doc, Collections.singleton(ID));
+					hits.add(new Hit(Integer.valueOf(document.get(ID)), scoreDoc.score));
+				}
+				return new SliceImpl<>(hits, pageable, top.scoreDocs.length > to);
+			}
+			finally {
+				this.searcherManager.release(searcher);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Return the number of indexed visits, as of the last refresh.
+	 * @return the number of visits
+	 */
+	public int size() {
+		try {
+			IndexSearcher searcher = this.searcherManager.acquire();
+			try {
+				return searcher.getIndexReader().numDocs();
+			}
+			finally {
+				this.searcherManager.release(searcher);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void index(Integer id, String description) {
+		if (id == null) {
+			return;
+		}
+		Document document = new Document();
+		document.add(new StringField(ID, id.toString(), Field.Store.YES));
+		if (description != null) {
+			document.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+		}
+		try {
+			this.writer.updateDocument(new Term(ID, id.toString()), document);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Make the visits indexed so far searchable.
+	 */
+	void refresh() {
+		if (this.rebuilding) {
+			return;
+		}
+		try {
+			this.searcherManager.maybeRefresh();
+		}
+		catch (IOException ex) {
+			logger.warn("Cannot refresh the visit search index", ex);
+		}
+	}
+
+	private void commit() {
+		if (this.rebuilding) {
+			return;
+		}
+		try {
+			if (this.writer.hasUncommittedChanges()) {
+				this.writer.commit();
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Cannot commit the visit search index", ex);
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		this.scheduler.shutdownNow();
+		this.searcherManager.close();
+		// commits the pending changes
+		this.writer.close();
+		this.directory.close();
+		if (this.temporaryDirectory != null) {
+			FileSystemUtils.deleteRecursively(this.temporaryDirectory);
+		}
+	}
+
+	/**
+	 * A visit matching a search.
+	 */
+	public static class Hit {
+
+		private final int visitId;
+
+		private final float score;
+
+		Hit(int visitId, float score) {
+			this.visitId = visitId;
+			this.score = score;
+		}
+
+		public int getVisitId() {
+			return this.visitId;
+		}
+
+		public float getScore() {
+			return this.score;
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the {@link VisitSearchIndex}, bound from the
+ * <code>petclinic.visits.search</code> properties.
+ */
+@ConfigurationProperties("petclinic.visits.search")
+public class VisitSearchProperties {
+
+	/**
+	 * Directory of the index, on a local disk, used by this instance only. Required
+	 * unless the index is rebuilt at every start, in which case a new temporary directory
+	 * is used by default.
+	 */
+	private Path directory;
+
+	/**
+	 * Whether to read the index from the database at every start, rather than only when
+	 * it does not exist yet. Needed with the in-memory databases, which are created anew
+	 * at every start.
+	 */
+	private boolean rebuildOnStart;
+
+	/**
+	 * Time after which saved visits become searchable.
+	 */
+	private Duration refreshInterval = Duration.ofSeconds(1);
+
+	/**
+	 * Time between two commits of the index to its directory. Visits saved since the last
+	 * commit are lost if the application stops abruptly, until the index is rebuilt.
+	 */
+	private Duration commitInterval = Duration.ofMinutes(1);
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	public void setDirectory(Path directory) {
+		this.directory = directory;
+	}
+
+	public boolean isRebuildOnStart() {
+		return this.rebuildOnStart;
+	}
+
+	public void setRebuildOnStart(boolean rebuildOnStart) {
+		this.rebuildOnStart = rebuildOnStart;
+	}
+
+	public Duration getRefreshInterval() {
+		return this.refreshInterval;
+	}
+
+	public void setRefreshInterval(Duration refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	public Duration getCommitInterval() {
+		return this.commitInterval;
+	}
+
+	public void setCommitInterval(Duration commitInterval) {
+		this.commitInterval = commitInterval;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.LocalDate;
+
+/**
+ * A {@link Visit} found by the full-text search, with its pet and the pet's owner, read
+ * with a scalar query.
+ *
+ * @see VisitSearchIndex
+ * @see VisitRepository#findSearchResultsByIdIn
+ */
+public class VisitSearchResult {
+
+	private final Integer visitId;
+
+	private final LocalDate date;
+
+	private final String description;
+
+	private final Integer petId;
+
+	private final String petName;
+
+	private final Integer ownerId;
+
+	private final String ownerFirstName;
+
+	private final String ownerLastName;
+
+	private float score;
+
+	public VisitSearchResult(Integer visitId, LocalDate date, String description, Integer petId, String petName,
+			Integer ownerId, String ownerFirstName, String ownerLastName) {
+		this.visitId = visitId;
+		this.date = date;
+		this.description = description;
+		this.petId = petId;
+		this.petName = petName;
+		this.ownerId = ownerId;
+		this.ownerFirstName = ownerFirstName;
+		this.ownerLastName = ownerLastName;
+	}
+
+	public Integer getVisitId() {
+		return this.visitId;
+	}
+
+	public LocalDate getDate() {
+		return this.date;
+	}
+
+	public String getDescription() {
+		return this.description;
+	}
+
+	public Integer getPetId() {
+		return this.petId;
+	}
+
+	public String getPetName() {
+		return this.petName;
+	}
+
+	public Integer getOwnerId() {
+		return this.ownerId;
+	}
+
+	public String getOwnerFirstName() {
+		return this.ownerFirstName;
+	}
+
+	public String getOwnerLastName() {
+		return this.ownerLastName;
+	}
+
+	/**
+	 * Return the relevance of the visit to the search, higher is better.
+	 * @return the score of the visit
+	 */
+	public float getScore() {
+		return this.score;
+	}
+
+	void setScore(float score) {
+		this.score = score;
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a {@link Visit} for the JSON API, read with a scalar query so that
+ * the visit does not become a managed entity and its version is not exposed.
+ *
+ * @see VisitRepository#findSummariesByPetIdAndDateBetween
+ */
+public class VisitSummary {
+
+	private final Integer id;
+
+	private final LocalDate date;
+
+	private final String description;
+
+	public VisitSummary(Integer id, LocalDate date, String description) {
+		this.id = id;
+		this.date = date;
+		this.description = description;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public LocalDate getDate() {
+		return this.date;
+	}
+
+	public String getDescription() {
+		return this.description;
+	}
+
+}
@@ -5,18 +5,26 @@ DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP SEQUENCE IF EXISTS owner_seq;
+DROP SEQUENCE IF EXISTS pet_seq;
+DROP SEQUENCE IF EXISTS visit_seq;
+DROP SEQUENCE IF EXISTS vet_seq;
+DROP SEQUENCE IF EXISTS specialty_seq;
+DROP SEQUENCE IF EXISTS pettype_seq;
 
 
 CREATE TABLE vets (
   id         INTEGER IDENTITY PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR(30)
+  last_name  VARCHAR(30),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
   id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  name VARCHAR(80),
+  version INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX specialties_name ON specialties (name);
 
@@ -29,7 +37,8 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIG
 
 CREATE TABLE types (
   id   INTEGER IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  name VARCHAR(80),
+  version INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX types_name ON types (name);
 
@@ -39,16 +48,20 @@ CREATE TABLE owners (
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  normalized_telephone VARCHAR(10)
 );
 CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_normalized_telephone ON owners (normalized_telephone);
 
 CREATE TABLE pets (
   id         INTEGER IDENTITY PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER NOT NULL
+  owner_id   INTEGER NOT NULL,
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
@@ -58,7 +71,16 @@ CREATE TABLE visits (
   id          INTEGER IDENTITY PRIMARY KEY,
   pet_id      INTEGER NOT NULL,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+-- Id sequences, see BaseEntity. They start past the ids of the sample data.
+CREATE SEQUENCE owner_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pet_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE visit_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE vet_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE specialty_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pettype_seq START WITH 100 INCREMENT BY 50;
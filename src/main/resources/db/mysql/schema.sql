@@ -2,12 +2,14 @@ CREATE TABLE IF NOT EXISTS vets (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
+  version INT NOT NULL DEFAULT 0,
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS specialties (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  version INT NOT NULL DEFAULT 0,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -22,6 +24,7 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 CREATE TABLE IF NOT EXISTS types (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  version INT NOT NULL DEFAULT 0,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -32,7 +35,10 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  version INT NOT NULL DEFAULT 0,
+  normalized_telephone VARCHAR(10),
+  INDEX(last_name),
+  INDEX(normalized_telephone)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -41,6 +47,7 @@ CREATE TABLE IF NOT EXISTS pets (
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED NOT NULL,
+  version INT NOT NULL DEFAULT 0,
   INDEX(name),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
@@ -51,5 +58,83 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT(4) UNSIGNED NOT NULL,
   visit_date DATE,
   description VARCHAR(255),
+  version INT NOT NULL DEFAULT 0,
+  INDEX(pet_id, visit_date),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- Columns added since the tables were first created. MySQL 5.7 has no ADD COLUMN IF NOT
+-- EXISTS, so each ALTER TABLE is prepared only when information_schema does not list the
+-- column yet, and a no-op SELECT is prepared otherwise. Each is a single statement, so the
+-- script can still be split on semicolons, and they run on the same connection.
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE vets ADD COLUMN version INT NOT NULL DEFAULT 0', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'vets' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE specialties ADD COLUMN version INT NOT NULL DEFAULT 0', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'specialties' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE types ADD COLUMN version INT NOT NULL DEFAULT 0', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'types' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE owners ADD COLUMN version INT NOT NULL DEFAULT 0', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE pets ADD COLUMN version INT NOT NULL DEFAULT 0', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'pets' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE visits ADD COLUMN version INT NOT NULL DEFAULT 0', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+  'ALTER TABLE owners ADD COLUMN normalized_telephone VARCHAR(10), ADD INDEX(normalized_telephone)', 'SELECT 1')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'normalized_telephone');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- Id sequences, see BaseEntity. MySQL has no sequences, so Hibernate uses one-row
+-- tables instead. They start past the ids of the sample data and, when an existing
+-- database is upgraded from AUTO_INCREMENT keys, past the highest id of its table.
+CREATE TABLE IF NOT EXISTS owner_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO owner_seq SELECT next_val
+  FROM (SELECT GREATEST(100, COALESCE(MAX(id), 0) + 1) AS next_val FROM owners) ids
+  WHERE NOT EXISTS (SELECT * FROM owner_seq);
+CREATE TABLE IF NOT EXISTS pet_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO pet_seq SELECT next_val
+  FROM (SELECT GREATEST(100, COALESCE(MAX(id), 0) + 1) AS next_val FROM pets) ids
+  WHERE NOT EXISTS (SELECT * FROM pet_seq);
+CREATE TABLE IF NOT EXISTS visit_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO visit_seq SELECT next_val
+  FROM (SELECT GREATEST(100, COALESCE(MAX(id), 0) + 1) AS next_val FROM visits) ids
+  WHERE NOT EXISTS (SELECT * FROM visit_seq);
+CREATE TABLE IF NOT EXISTS vet_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO vet_seq SELECT next_val
+  FROM (SELECT GREATEST(100, COALESCE(MAX(id), 0) + 1) AS next_val FROM vets) ids
+  WHERE NOT EXISTS (SELECT * FROM vet_seq);
+CREATE TABLE IF NOT EXISTS specialty_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO specialty_seq SELECT next_val
+  FROM (SELECT GREATEST(100, COALESCE(MAX(id), 0) + 1) AS next_val FROM specialties) ids
+  WHERE NOT EXISTS (SELECT * FROM specialty_seq);
+CREATE TABLE IF NOT EXISTS pettype_seq (next_val BIGINT) engine=InnoDB;
+INSERT INTO pettype_seq SELECT next_val
+  FROM (SELECT GREATEST(100, COALESCE(MAX(id), 0) + 1) AS next_val FROM types) ids
+  WHERE NOT EXISTS (SELECT * FROM pettype_seq);
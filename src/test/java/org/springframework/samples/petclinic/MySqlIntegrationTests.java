@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the application against MySQL in a container, with the "mysql" profile. The
+ * database starts with the tables of the first release, so that starting the application
+ * upgrades them, and each entity then gets its id from its sequence table. Skipped when
+ * Docker is not available.
+ */
+@SpringBootTest
+@ActiveProfiles("mysql")
+@Testcontainers(disabledWithoutDocker = true)
+class MySqlIntegrationTests {
+
+	@Container
+	static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:5.7").withDatabaseName("petclinic")
+			.withInitScript("db/mysql/legacy.sql");
+
+	@DynamicPropertySource
+	static void mysqlProperties(DynamicPropertyRegistry registry) throws IOException {
+		registry.add("spring.datasource.url", mysql::getJdbcUrl);
+		registry.add("spring.datasource.username", mysql::getUsername);
+		registry.add("spring.datasource.password", mysql::getPassword);
+		String directory = Files.createTempDirectory("visit-index").toString();
+		registry.add("petclinic.visits.search.directory", () -> directory);
+	}
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void testUpgradeExistingTables() throws Exception {
+		for (String table : new String[] { "vets", "specialties", "types", "owners", "pets", "visits" }) {
+			assertThat(jdbc.queryForObject("SELECT MAX(version) FROM " + table, Integer.class)).as(table).isZero();
+		}
+		assertThat(jdbc.queryForObject("SELECT normalized_telephone FROM owners WHERE id = 12", String.class))
+				.isEqualTo("6085550199");
+	}
+
+	@Test
+	void testSaveEachEntity() throws Exception {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			PetType type = new PetType();
+			type.setName("ferret");
+			Specialty specialty = new Specialty();
+			specialty.setName("dermatology");
+			Vet vet = new Vet();
+			vet.setFirstName("Helen");
+			vet.setLastName("Leary");
+			vet.addSpecialty(specialty);
+			Owner owner = new Owner();
+			owner.setFirstName("Sam");
+			owner.setLastName("Schultz");
+			owner.setAddress("4, Evans Street");
+			owner.setCity("Wollongong");
+			owner.setTelephone("4444444444");
+			Pet pet = new Pet();
+			pet.setName("Mulligan");
+			pet.setType(type);
+			owner.addPet(pet);
+			Visit visit = new Visit();
+			visit.setDescription("check-up");
+			pet.addVisit(visit);
+
+			for (BaseEntity entity : new BaseEntity[] { type, specialty, vet, owner, visit }) {
+				entityManager.persist(entity);
+			}
+			entityManager.flush();
+			// the sample data ends below 100, see schema.sql
+			for (BaseEntity entity : new BaseEntity[] { type, specialty, vet, owner, pet, visit }) {
+				assertThat(entity.getId()).as(entity.getClass().getSimpleName()).isGreaterThanOrEqualTo(100);
+			}
+		});
+	}
+
+}
@@ -16,21 +16,189 @@
 
 package org.springframework.samples.petclinic;
 
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManagerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.model.VersionTag;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerWithPets;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.service.EntityUtils;
+import org.springframework.samples.petclinic.system.ConnectionPoolEndpoint;
+import org.springframework.samples.petclinic.system.FragmentCache;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 class PetclinicIntegrationTests {
 
 	@Autowired
 	private VetRepository vets;
 
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ConnectionPoolEndpoint connectionPools;
+
+	@Autowired
+	private FragmentCache fragments;
+
+	@Autowired
+	private ThreadPoolTaskExecutor taskExecutor;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
 	@Test
 	void testFindAll() throws Exception {
 		vets.findAll();
 		vets.findAll(); // served from cache
 	}
 
+	@Test
+	void testFindAllSummaries() throws Exception {
+		vets.findAllSummaries();
+		vets.findAllSummaries(); // served from cache
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "vetSummaries").tag("result", "hit").functionCounter()
+				.count()).isGreaterThanOrEqualTo(1);
+	}
+
+	@Test
+	void testFindPetTypes() throws Exception {
+		// the second call is served from the cache
+		assertThat(pets.findPetTypes()).isSameAs(pets.findPetTypes());
+	}
+
+	@Test
+	void testFindOwner() throws Exception {
+		Owner owner = owners.findById(1);
+		Owner cached = owners.findById(1); // served from cache, as a copy
+		assertThat(cached).isNotSameAs(owner);
+		assertThat(cached.getPets()).extracting("name").containsExactly("Leo");
+	}
+
+	@Test
+	@Transactional(readOnly = true)
+	void testStreamAllWithPets() throws Exception {
+		try (Stream<OwnerWithPets> rows = owners.streamAllWithPets()) {
+			OwnerWithPets first = rows.findFirst().get();
+			assertThat(first.getId()).isEqualTo(1);
+			assertThat(first.getPets()).extracting("name").containsExactly("Leo");
+		}
+	}
+
+	@Test
+	void testFragmentCache() throws Exception {
+		ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+		String html = fragments.render("vets/vetTable", "vetTable", new VersionTag().add(1),
+				Collections.singletonMap("vets", vets.findAllSummaries()), request);
+		assertThat(html).contains("Carter").contains("radiology");
+		// the same version is not rendered again
+		assertThat(fragments.render("vets/vetTable", "vetTable", new VersionTag().add(1), Collections.emptyMap(),
+				request)).isSameAs(html);
+	}
+
+	@Test
+	void testCacheMetrics() throws Exception {
+		pets.findPetTypes();
+		pets.findPetTypes();
+		assertThat(
+				meterRegistry.get("cache.gets").tag("cache", "petTypes").tag("result", "hit").functionCounter().count())
+						.isPositive();
+		assertThat(meterRegistry.get("cache.evictions").tag("cache", "owners").functionCounter()).isNotNull();
+	}
+
+	@Test
+	void testConnectionPoolEndpoint() throws Exception {
+		String pool = connectionPools.pools().keySet().iterator().next();
+		assertThat(meterRegistry.get("hikaricp.connections.pending").tag("pool", pool).gauge()).isNotNull();
+		assertThat(connectionPools.resize(pool, 12, null).getMaximumPoolSize()).isEqualTo(12);
+		assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(12);
+		assertThat(taskExecutor.getCorePoolSize()).isEqualTo(12);
+		assertThat(connectionPools.resize(pool, 10, null).getMaximumPoolSize()).isEqualTo(10);
+		assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(10);
+		assertThatExceptionOfType(InvalidEndpointRequestException.class)
+				.isThrownBy(() -> connectionPools.resize(pool, 1000, null));
+	}
+
+	@Test
+	void testShowOwnerWithFixedStatementCount() throws Exception {
+		long singlePet = statementsToShowOwnerWithVisits(1);
+		assertThat(statementsToShowOwnerWithVisits(40)).isEqualTo(singlePet);
+	}
+
+	private long statementsToShowOwnerWithVisits(int petCount) throws Exception {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		PetType type = EntityUtils.getById(pets.findPetTypes(), PetType.class, 2);
+		for (int i = 0; i < petCount; i++) {
+			Pet pet = new Pet();
+			pet.setName("pet" + i);
+			pet.setType(type);
+			owner.addPet(pet);
+		}
+		owners.save(owner);
+		for (Pet pet : owner.getPets()) {
+			Visit visit = new Visit();
+			visit.setDescription("check-up");
+			pet.addVisit(visit);
+			visits.save(visit);
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		try {
+			// a new owner is neither in the owners cache nor in the fragment cache
+			mockMvc.perform(get("/owners/{ownerId}", owner.getId())).andExpect(status().isOk());
+			return statistics.getPrepareStatementCount();
+		}
+		finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.VisitSummary;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Test class for {@link OwnerApiController}
+ */
+@WebMvcTest(OwnerApiController.class)
+class OwnerApiControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerRepository owners;
+
+	@MockBean
+	private PetRepository pets;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@Test
+	void testFindOwnersSendsNextPageLink() throws Exception {
+		given(this.owners.findIdsByLastName(eq("Dav"), any(Pageable.class))).willReturn(Arrays.asList(1, 2));
+		given(this.owners.findAllSummariesByIdIn(Collections.singletonList(1))).willReturn(
+				Collections.singletonList(new OwnerSummary(1, "Betty", "Davis", "638 Cardinal Ave.", "Sun Prairie",
+						"6085551749", "Basil")));
+		perform(get("/api/owners?lastName=Dav&size=1")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].lastName").value("Davis"))
+				.andExpect(jsonPath("$[0].petNames[0]").value("Basil"))
+				.andExpect(header().string("Link", containsString("afterLastName=Davis&afterId=1")));
+	}
+
+	@Test
+	void testFindOwnersByTelephone() throws Exception {
+		given(this.owners.findAllSummariesByTelephone("+1 608-555-1749")).willReturn(Collections.singletonList(
+				new OwnerSummary(2, "Betty", "Davis", "638 Cardinal Ave.", "Sun Prairie", "6085551749", "Basil")));
+		perform(get("/api/owners").param("telephone", "+1 608-555-1749")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(2)).andExpect(jsonPath("$[0].telephone").value("6085551749"));
+	}
+
+	@Test
+	void testFindOwnersByTelephones() throws Exception {
+		given(this.owners.findAllSummariesByTelephoneIn(Arrays.asList("6085551749", "6085550000")))
+				.willReturn(Collections.singletonMap("6085551749", Collections.singletonList(new OwnerSummary(2,
+						"Betty", "Davis", "638 Cardinal Ave.", "Sun Prairie", "6085551749", "Basil"))));
+		String telephones = "[\"6085551749\", \"6085550000\"]";
+		perform(post("/api/owners/telephone-lookup").contentType(MediaType.APPLICATION_JSON).content(telephones))
+				.andExpect(status().isOk()).andExpect(jsonPath("$['6085551749'][0].lastName").value("Davis"))
+				.andExpect(jsonPath("$['6085550000']").doesNotExist());
+	}
+
+	@Test
+	void testFindOwnersByTooManyTelephones() throws Exception {
+		String telephones = Collections.nCopies(501, "\"6085551749\"").toString();
+		perform(post("/api/owners/telephone-lookup").contentType(MediaType.APPLICATION_JSON).content(telephones))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testShowOwnerNotFound() throws Exception {
+		given(this.owners.findAllSummariesByIdIn(anyCollection())).willReturn(Collections.emptyList());
+		perform(get("/api/owners/42")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testShowPets() throws Exception {
+		given(this.pets.findSummariesByOwnerId(1))
+				.willReturn(Collections.singletonList(new PetSummary(1, "Basil", LocalDate.of(2012, 8, 6), "hamster")));
+		perform(get("/api/owners/1/pets")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].name").value("Basil")).andExpect(jsonPath("$[0].type").value("hamster"))
+				.andExpect(jsonPath("$[0].birthDate").value("2012-08-06"));
+	}
+
+	@Test
+	void testShowVisitsSendsNextPageLink() throws Exception {
+		VisitSummary visit = new VisitSummary(3, LocalDate.of(2013, 1, 4), "spayed");
+		PageRequest page = PageRequest.of(1, 1);
+		given(this.visits.findSummariesByPetIdAndDateBetween(7, LocalDate.of(2013, 1, 1), LocalDate.of(9999, 12, 31),
+				page)).willReturn(new SliceImpl<>(Collections.singletonList(visit), page, true));
+		perform(get("/api/pets/7/visits?from=2013-01-01&page=1&size=1")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].description").value("spayed"))
+				.andExpect(jsonPath("$[0].date").value("2013-01-04")).andExpect(jsonPath("$[0].version").doesNotExist())
+				.andExpect(header().string("Link", containsString("page=2")));
+	}
+
+	private ResultActions perform(MockHttpServletRequestBuilder builder) throws Exception {
+		MvcResult result = this.mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		return this.mockMvc.perform(asyncDispatch(result));
+	}
+
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		TaskExecutor taskExecutor() {
+			return new SyncTaskExecutor();
+		}
+
+	}
+
+}
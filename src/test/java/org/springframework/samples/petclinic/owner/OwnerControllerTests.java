@@ -17,9 +17,14 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.util.Lists;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -28,17 +33,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.system.FragmentCache;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -49,6 +67,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Colin But
  */
 @WebMvcTest(OwnerController.class)
+@Import({ OwnerSearchMetrics.class, SimpleMeterRegistry.class })
 class OwnerControllerTests {
 
 	private static final int TEST_OWNER_ID = 1;
@@ -56,12 +75,21 @@ class OwnerControllerTests {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@MockBean
 	private OwnerRepository owners;
 
 	@MockBean
 	private VisitRepository visits;
 
+	@MockBean
+	private FragmentCache fragments;
+
+	@MockBean
+	private OwnerNameIndex nameIndex;
+
 	private Owner george;
 
 	@BeforeEach
@@ -84,7 +112,8 @@ class OwnerControllerTests {
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
-		given(this.visits.findByPetId(max.getId())).willReturn(Collections.singletonList(visit));
+		visit.setPetId(max.getId());
+		given(this.visits.findRecentByPetIdIn(anyCollection(), anyInt())).willReturn(Collections.singletonList(visit));
 	}
 
 	@Test
@@ -116,16 +145,52 @@ class OwnerControllerTests {
 				.andExpect(view().name("owners/findOwners"));
 	}
 
-	// @Test
-	// void testProcessFindFormSuccess() throws Exception {
-	// given(this.owners.findByLastName("")).willReturn(Lists.newArrayList(george, new
-	// Owner()));
-	// mockMvc.perform(get("/owners")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
-	// }
+	@Test
+	void testProcessFindFormSuccess() throws Exception {
+		OwnerSummary harold = new OwnerSummary(4, "Harold", "Davis", "563 Friendly St.", "Windsor", "6085553198",
+				"Iggy");
+		given(this.owners.findIdsByLastName(eq(""), any())).willReturn(Lists.newArrayList(1, 4));
+		given(this.owners.findAllSummariesByIdIn(Lists.newArrayList(1, 4)))
+				.willReturn(Lists.newArrayList(summary(george), harold));
+		mockMvc.perform(get("/owners")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"))
+				.andExpect(model().attribute("selections", hasSize(2)))
+				.andExpect(model().attributeDoesNotExist("nextAfterId"));
+	}
+
+	@Test
+	void testProcessFindFormHasNextPage() throws Exception {
+		List<Integer> ids = new ArrayList<>();
+		List<OwnerSummary> page = new ArrayList<>();
+		for (int i = 1; i <= 21; i++) {
+			ids.add(i);
+			if (i <= 20) {
+				page.add(new OwnerSummary(i, "George", "Franklin", null, null, null, null));
+			}
+		}
+		given(this.owners.findIdsByLastName(eq("Franklin"), any())).willReturn(ids);
+		given(this.owners.findAllSummariesByIdIn(ids.subList(0, 20))).willReturn(page);
+		mockMvc.perform(get("/owners").param("lastName", "Franklin")).andExpect(status().isOk())
+				.andExpect(view().name("owners/ownersList")).andExpect(model().attribute("selections", hasSize(20)))
+				.andExpect(model().attribute("nextAfterLastName", "Franklin"))
+				.andExpect(model().attribute("nextAfterId", 20));
+	}
+
+	@Test
+	void testProcessFindFormNextPage() throws Exception {
+		given(this.owners.findIdsByLastNameAfter(eq("Franklin"), eq("Franklin"), eq(20), any()))
+				.willReturn(Lists.newArrayList(TEST_OWNER_ID));
+		given(this.owners.findAllSummariesByIdIn(Lists.newArrayList(TEST_OWNER_ID)))
+				.willReturn(Lists.newArrayList(summary(george)));
+		mockMvc.perform(
+				get("/owners").param("lastName", "Franklin").param("afterLastName", "Franklin").param("afterId", "20"))
+				.andExpect(status().isOk()).andExpect(view().name("owners/ownersList"))
+				.andExpect(model().attribute("selections", hasSize(1)));
+	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		given(this.owners.findByLastName(george.getLastName())).willReturn(Lists.newArrayList(george));
+		given(this.owners.findIdsByLastName(eq(george.getLastName()), any()))
+				.willReturn(Lists.newArrayList(TEST_OWNER_ID));
 		mockMvc.perform(get("/owners").param("lastName", "Franklin")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
 	}
@@ -138,6 +203,41 @@ class OwnerControllerTests {
 				.andExpect(view().name("owners/findOwners"));
 	}
 
+	@Test
+	void testTypeahead() throws Exception {
+		given(this.nameIndex.suggest("da", 20)).willReturn(Lists.newArrayList("Davis", "Dawson"));
+		mockMvc.perform(get("/owners/typeahead").param("lastName", "da").param("size", "1000"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0]").value("Davis"))
+				.andExpect(jsonPath("$[1]").value("Dawson"));
+		verify(this.owners, never()).findIdsByLastName(any(), any());
+	}
+
+	@Test
+	void testProcessFindFormRecordsMetrics() throws Exception {
+		double empty = meterRegistry.get("petclinic.owners.search.outcome").tag("outcome", "empty").counter().count();
+		long searches = meterRegistry.get("petclinic.owners.search").timer().count();
+		mockMvc.perform(get("/owners").param("lastName", "Unknown Surname")).andExpect(status().isOk());
+		assertThat(meterRegistry.get("petclinic.owners.search.outcome").tag("outcome", "empty").counter().count())
+				.isEqualTo(empty + 1);
+		assertThat(meterRegistry.get("petclinic.owners.search").timer().count()).isEqualTo(searches + 1);
+	}
+
+	@Test
+	void testProcessFindFormNextPageRecordsOnlyLatency() throws Exception {
+		given(this.owners.findIdsByLastNameAfter(eq("Franklin"), eq("Franklin"), eq(20), any()))
+				.willReturn(Lists.newArrayList(TEST_OWNER_ID));
+		given(this.owners.findAllSummariesByIdIn(Lists.newArrayList(TEST_OWNER_ID)))
+				.willReturn(Lists.newArrayList(summary(george)));
+		double single = meterRegistry.get("petclinic.owners.search.outcome").tag("outcome", "single").counter().count();
+		long searches = meterRegistry.get("petclinic.owners.search").timer().count();
+		mockMvc.perform(
+				get("/owners").param("lastName", "Franklin").param("afterLastName", "Franklin").param("afterId", "20"))
+				.andExpect(status().isOk());
+		assertThat(meterRegistry.get("petclinic.owners.search.outcome").tag("outcome", "single").counter().count())
+				.isEqualTo(single);
+		assertThat(meterRegistry.get("petclinic.owners.search").timer().count()).isEqualTo(searches + 1);
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID)).andExpect(status().isOk())
@@ -154,10 +254,18 @@ class OwnerControllerTests {
 	void testProcessUpdateOwnerFormSuccess() throws Exception {
 		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
 				.param("lastName", "Bloggs").param("address", "123 Caramel Street").param("city", "London")
-				.param("telephone", "01616291589")).andExpect(status().is3xxRedirection())
+				.param("telephone", "01616291589").param("version", "0")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
+	@Test
+	void testProcessUpdateOwnerFormWithoutVersion() throws Exception {
+		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs").param("address", "123 Caramel Street").param("city", "London")
+				.param("telephone", "01616291589").param("version", "")).andExpect(status().isConflict());
+		verify(this.owners, never()).save(any(Owner.class));
+	}
+
 	@Test
 	void testProcessUpdateOwnerFormHasErrors() throws Exception {
 		mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
@@ -197,4 +305,40 @@ class OwnerControllerTests {
 				}))).andExpect(view().name("owners/ownerDetails"));
 	}
 
+	@Test
+	void testShowOwnerNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk())
+				.andExpect(header().exists("ETag")).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+		george.setVersion(1);
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header("If-None-Match", etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void testShowOwnerLoadsVisitsOfAllPetsInOneQuery() throws Exception {
+		Set<Pet> pets = new HashSet<>();
+		for (int i = 1; i <= 40; i++) {
+			Pet pet = new Pet();
+			pet.setId(i);
+			pet.setName("Pet" + i);
+			pets.add(pet);
+		}
+		george.setPetsInternal(pets);
+		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk())
+				.andExpect(view().name("owners/ownerDetails"));
+		verify(this.visits, times(1)).findRecentByPetIdIn(anyCollection(), anyInt());
+		verify(this.visits, never()).findByPetId(anyInt());
+	}
+
+	private static OwnerSummary summary(Owner owner) {
+		OwnerSummary summary = new OwnerSummary(owner.getId(), owner.getFirstName(), owner.getLastName(),
+				owner.getAddress(), owner.getCity(), owner.getTelephone(), null);
+		for (Pet pet : owner.getPets()) {
+			summary.merge(new OwnerSummary(owner.getId(), null, null, null, null, null, pet.getName()));
+		}
+		return summary;
+	}
+
 }
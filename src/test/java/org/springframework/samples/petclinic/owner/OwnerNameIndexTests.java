@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for {@link OwnerNameIndex}
+ */
+class OwnerNameIndexTests {
+
+	private OwnerRepository owners;
+
+	private OwnerNameIndex index;
+
+	@BeforeEach
+	void setup() {
+		this.owners = mock(OwnerRepository.class);
+		given(this.owners.streamIdsAndLastNames()).willReturn(Stream.of(new Object[] { 1, "Davis" },
+				new Object[] { 2, "Franklin" }, new Object[] { 3, "davis" }, new Object[] { 4, "Davidson" },
+				new Object[] { 5, "Black" }));
+		this.index = new OwnerNameIndex(this.owners, mock(PlatformTransactionManager.class));
+		this.index.build();
+	}
+
+	@Test
+	void testSuggestFromDatabaseUntilBuilt() {
+		OwnerNameIndex index = new OwnerNameIndex(this.owners, mock(PlatformTransactionManager.class));
+		given(this.owners.findDistinctLastNamesStartingWith("Da", PageRequest.of(0, 10)))
+				.willReturn(Arrays.asList("Davidson", "Davis"));
+		assertThat(index.suggest("Da", 10)).containsExactly("Davidson", "Davis");
+		index.destroy();
+	}
+
+	@Test
+	void testSuggestIgnoresCaseAndDuplicates() {
+		assertThat(this.index.suggest("DA", 10)).containsExactly("Davidson", "Davis");
+		assertThat(this.index.suggest("davis", 10)).containsExactly("Davis");
+		assertThat(this.index.suggest("", 2)).containsExactly("Black", "Davidson");
+		assertThat(this.index.suggest("x", 10)).isEmpty();
+	}
+
+	@Test
+	void testSavedOwnerReplacesItsLastName() {
+		this.index.onOwnerSaved(new OwnerSaved(2, "Dawson"));
+		this.index.onOwnerSaved(new OwnerSaved(6, "Estaban"));
+		assertThat(this.index.suggest("f", 10)).isEmpty();
+		assertThat(this.index.suggest("daw", 10)).containsExactly("Dawson");
+		assertThat(this.index.suggest("e", 10)).containsExactly("Estaban");
+		assertThat(this.index.size()).isEqualTo(6);
+	}
+
+	@Test
+	void testOwnersShareTheirName() {
+		assertThat(this.index.distinctNames()).isEqualTo(4);
+		this.index.onOwnerSaved(new OwnerSaved(1, "Franklin"));
+		assertThat(this.index.suggest("davis", 10)).containsExactly("Davis");
+		this.index.onOwnerSaved(new OwnerSaved(3, "Franklin"));
+		assertThat(this.index.suggest("davis", 10)).isEmpty();
+		assertThat(this.index.distinctNames()).isEqualTo(3);
+		assertThat(this.index.size()).isEqualTo(5);
+	}
+
+	@Test
+	void testIndexesAnyOwnerId() {
+		this.index.put(Integer.MAX_VALUE, "Escobito", false);
+		assertThat(this.index.suggest("esc", 10)).containsExactly("Escobito");
+	}
+
+	@Test
+	void testBuildKeepsNamesOfSavedOwners() {
+		this.index.onOwnerSaved(new OwnerSaved(2, "Dawson"));
+		// a row read before the owner was saved
+		this.index.put(2, "Franklin", false);
+		assertThat(this.index.suggest("f", 10)).isEmpty();
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class for {@link TelephoneBackfill}
+ */
+@JdbcTest
+class TelephoneBackfillTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void testNormalizesLikeTheOwner() throws Exception {
+		jdbc.update("UPDATE owners SET telephone = '+1 (608) 555-1023', normalized_telephone = NULL WHERE id = 1");
+		jdbc.update("UPDATE owners SET telephone = 'unknown', normalized_telephone = NULL WHERE id = 2");
+		new TelephoneBackfill(jdbc).run(null);
+		assertThat(jdbc.queryForObject("SELECT normalized_telephone FROM owners WHERE id = 1", String.class))
+				.isEqualTo(Owner.normalizeTelephone("+1 (608) 555-1023")).isEqualTo("6085551023");
+		assertThat(jdbc.queryForObject("SELECT normalized_telephone FROM owners WHERE id = 2", String.class)).isNull();
+		assertThat(jdbc.queryForObject("SELECT normalized_telephone FROM owners WHERE id = 3", String.class))
+				.isEqualTo("6085558763");
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link VisitImportController}
+ */
+@WebMvcTest(VisitImportController.class)
+@TestPropertySource(properties = "petclinic.visits.import.chunk-size=2")
+class VisitImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private PetRepository pets;
+
+	@BeforeEach
+	void init() {
+		given(this.pets.findIdsByIdIn(anyCollection())).willReturn(Arrays.asList(1, 2));
+	}
+
+	@Test
+	void testImportCsv() throws Exception {
+		String csv = "pet_id,visit_date,description\n" + "1,2021-01-01,rabies shot\n" + "2,,\"neutered, doing fine\"\n"
+				+ "1,2021-01-03,checkup\n";
+		mockMvc.perform(post("/visits/import").contentType("text/csv").content(csv)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(3)).andExpect(jsonPath("$.rejected").value(0));
+		// two chunks of at most two rows
+		verify(this.visits, times(2)).saveAll(anyIterable());
+	}
+
+	@Test
+	void testImportCsvReportsRejectedRows() throws Exception {
+		String csv = "1,2021-01-01,rabies shot\n" + "x,2021-01-01,bad pet id\n" + "1,01/01/2021,bad date\n"
+				+ "1,2021-01-01,\n" + "99,2021-01-01,unknown pet\n";
+		mockMvc.perform(post("/visits/import").contentType("text/csv").content(csv)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1)).andExpect(jsonPath("$.rejected").value(4))
+				.andExpect(jsonPath("$.errors[0].line").value(2)).andExpect(jsonPath("$.errors[1].line").value(3))
+				.andExpect(jsonPath("$.errors[2].line").value(4))
+				.andExpect(jsonPath("$.errors[2].message").value("description must not be empty"))
+				.andExpect(jsonPath("$.errors[3].line").value(5))
+				.andExpect(jsonPath("$.errors[3].message").value("unknown pet 99"))
+				.andExpect(jsonPath("$.errorsTruncated").value(false));
+	}
+
+	@Test
+	void testImportCsvWithQuotedFields() throws Exception {
+		// a quoted first row is data, not a header
+		String csv = "\"1\", \"2021-01-01\" ,\"said \"\"hi\"\"\"\n" + "1,2021-01-01,a, b\n"
+				+ "1,2021-01-01,\"unterminated\n" + "1,2021-01-01,\"quoted\" trailing\n";
+		mockMvc.perform(post("/visits/import").contentType("text/csv").content(csv)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(2)).andExpect(jsonPath("$.rejected").value(2))
+				.andExpect(jsonPath("$.errors[0].line").value(3)).andExpect(jsonPath("$.errors[1].line").value(4));
+		assertThat(VisitImportController.splitCsv("\"1\", \"2021-01-01\" ,\"said \"\"hi\"\"\"", 3))
+				.containsExactly("1", "2021-01-01", "said \"hi\"");
+		assertThat(VisitImportController.splitCsv("1,2021-01-01,a, b", 3)).containsExactly("1", "2021-01-01", "a, b");
+	}
+
+	@Test
+	void testImportCsvWithQuotedHeader() throws Exception {
+		String csv = "\"Pet_Id\", \"Visit_Date\", \"Description\"\n" + "1,2021-01-01,rabies shot\n";
+		mockMvc.perform(post("/visits/import").contentType("text/csv").content(csv)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1)).andExpect(jsonPath("$.rejected").value(0));
+	}
+
+	@Test
+	void testImportReportsChunkTheDatabaseFailedToSave() throws Exception {
+		given(this.visits.saveAll(anyIterable())).willThrow(new QueryTimeoutException("timeout"))
+				.willReturn(Collections.emptyList());
+		String csv = "1,2021-01-01,rabies shot\n" + "2,2021-01-02,checkup\n" + "1,2021-01-03,checkup\n";
+		mockMvc.perform(post("/visits/import").contentType("text/csv").content(csv)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1)).andExpect(jsonPath("$.rejected").value(2))
+				.andExpect(jsonPath("$.errors[0].line").value(1)).andExpect(jsonPath("$.errors[1].line").value(2))
+				.andExpect(jsonPath("$.errors[1].message").value("not saved: database error"));
+		verify(this.visits, times(2)).saveAll(anyIterable());
+	}
+
+	@Test
+	void testImportNdjson() throws Exception {
+		String ndjson = "{\"petId\":1,\"date\":\"2021-01-01\",\"description\":\"rabies shot\"}\n"
+				+ "{\"petId\":2,\"description\":\"checkup\"}\n" + "{\"petId\":1,\"description\":\n";
+		mockMvc.perform(post("/visits/import").contentType("application/x-ndjson").content(ndjson))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.imported").value(2))
+				.andExpect(jsonPath("$.rejected").value(1)).andExpect(jsonPath("$.errors[0].line").value(3));
+	}
+
+	@Test
+	void testImportNothingValid() throws Exception {
+		mockMvc.perform(post("/visits/import").contentType("text/csv").content("1,2021-01-01\n"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.imported").value(0))
+				.andExpect(jsonPath("$.rejected").value(1));
+		verify(this.visits, never()).saveAll(anyIterable());
+	}
+
+}
@@ -19,21 +19,36 @@ package org.springframework.samples.petclinic.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.owner.PetType;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.vet.VetSummary;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.samples.petclinic.visit.VisitSearchResult;
+import org.springframework.samples.petclinic.visit.VisitSummary;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.test.context.ActiveProfiles;
@@ -83,6 +98,12 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected TestEntityManager entityManager;
+
+	@Autowired
+	protected JdbcTemplate jdbcTemplate;
+
 	@Test
 	void shouldFindOwnersByLastName() {
 		Collection<Owner> owners = this.owners.findByLastName("Davis");
@@ -92,6 +113,50 @@ class ClinicServiceTests {
 		assertThat(owners).isEmpty();
 	}
 
+	@Test
+	void shouldFindOwnersByTelephone() {
+		assertThat(this.owners.findAllSummariesByTelephone("+1 (608) 555-1749")).extracting(OwnerSummary::getLastName)
+				.containsExactly("Davis");
+		assertThat(this.owners.findAllSummariesByTelephone("608-555-0000")).isEmpty();
+		assertThat(this.owners.findAllSummariesByTelephone("unknown")).isEmpty();
+
+		Map<String, List<OwnerSummary>> found = this.owners
+				.findAllSummariesByTelephoneIn(Arrays.asList("6085551023", "608.555.2654", "6085550000"));
+		assertThat(found).containsOnlyKeys("6085551023", "608.555.2654");
+		assertThat(found.get("608.555.2654")).extracting(OwnerSummary::getFirstName).containsExactly("Jean");
+	}
+
+	@Test
+	@Transactional
+	void shouldFindSavedOwnerByTelephone() {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		this.owners.save(owner);
+		assertThat(this.owners.findAllSummariesByTelephone("444 444 4444")).extracting(OwnerSummary::getId)
+				.containsExactly(owner.getId());
+	}
+
+	@Test
+	void shouldPageOwnersByLastNameAndId() {
+		List<Integer> firstPage = this.owners.findIdsByLastName("", PageRequest.of(0, 3));
+		assertThat(firstPage).containsExactly(7, 6, 2);
+
+		Owner last = this.owners.findById(firstPage.get(firstPage.size() - 1));
+		List<Integer> nextPage = this.owners.findIdsByLastNameAfter("", last.getLastName(), last.getId(),
+				PageRequest.of(0, 3));
+		assertThat(nextPage).containsExactly(4, 8, 10);
+
+		List<OwnerSummary> owners = this.owners.findAllSummariesByIdIn(nextPage);
+		assertThat(owners).extracting(OwnerSummary::getId).containsExactly(4, 8, 10);
+		assertThat(owners.get(0).getPetNames()).containsExactly("Iggy");
+		assertThat(owners.get(2).getPetNames()).containsExactly("Lucky", "Sly");
+		assertThat(owners.get(2).getTelephone()).isEqualTo("6085555487");
+	}
+
 	@Test
 	void shouldFindSingleOwnerWithPet() {
 		Owner owner = this.owners.findById(1);
@@ -101,6 +166,14 @@ class ClinicServiceTests {
 		assertThat(owner.getPets().get(0).getType().getName()).isEqualTo("cat");
 	}
 
+	@Test
+	void shouldFindOwnerWithoutPets() {
+		Owner owner = this.owners.findWithoutPetsById(1);
+		assertThat(owner.getLastName()).startsWith("Franklin");
+		assertThat(this.entityManager.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil()
+				.isLoaded(owner, "pets")).isFalse();
+	}
+
 	@Test
 	@Transactional
 	void shouldInsertOwner() {
@@ -201,6 +274,41 @@ class ClinicServiceTests {
 		assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("surgery");
 	}
 
+	@Test
+	void shouldFindManyVetsInOneStatement() {
+		int count = 10000;
+		List<Object[]> vets = new ArrayList<>(count);
+		List<Object[]> specialties = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			vets.add(new Object[] { 1000 + i, "James", "Vet" + i });
+			specialties.add(new Object[] { 1000 + i, 1 + i % 3 });
+		}
+		this.jdbcTemplate.batchUpdate("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)", vets);
+		this.jdbcTemplate.batchUpdate("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)", specialties);
+		this.entityManager.clear();
+
+		Statistics statistics = this.entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		Collection<Vet> all = this.vets.findAll();
+		assertThat(all).hasSize(count + 6);
+		assertThat(all).allSatisfy(vet -> assertThat(vet.getSpecialties()).hasSizeLessThanOrEqualTo(2));
+		long statements = statistics.getPrepareStatementCount();
+		statistics.setStatisticsEnabled(false);
+		assertThat(statements).isEqualTo(1);
+	}
+
+	@Test
+	void shouldFindVetSummaries() {
+		List<VetSummary> vets = this.vets.findAllSummaries();
+		assertThat(vets).extracting(VetSummary::getId).containsExactly(1, 2, 3, 4, 5, 6);
+		assertThat(vets.get(0).getSpecialties()).isEmpty();
+		assertThat(vets.get(2).getLastName()).isEqualTo("Douglas");
+		assertThat(vets.get(2).getSpecialties()).containsExactly("dentistry", "surgery");
+	}
+
 	@Test
 	@Transactional
 	void shouldAddNewVisitForPet() {
@@ -217,6 +325,22 @@ class ClinicServiceTests {
 		assertThat(visit.getId()).isNotNull();
 	}
 
+	@Test
+	@Transactional
+	void shouldAddSeveralVisitsAtOnce() {
+		int found = this.visits.findByPetId(7).size();
+		List<Visit> visits = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Visit visit = new Visit();
+			visit.setPetId(7);
+			visit.setDescription("visit " + i);
+			visits.add(visit);
+		}
+		this.visits.saveAll(visits);
+		assertThat(visits).extracting(Visit::getId).doesNotContainNull();
+		assertThat(this.visits.findByPetId(7)).hasSize(found + 3);
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() throws Exception {
 		Collection<Visit> visits = this.visits.findByPetId(7);
@@ -226,4 +350,47 @@ class ClinicServiceTests {
 		assertThat(visitArr[0].getPetId()).isEqualTo(7);
 	}
 
+	@Test
+	@Transactional
+	void shouldFindRecentVisitsOfEachPet() {
+		Pet pet7 = this.pets.findById(7);
+		for (int day = 1; day <= 3; day++) {
+			Visit visit = new Visit();
+			visit.setDate(LocalDate.of(2020, 1, day));
+			visit.setDescription("check-up " + day);
+			pet7.addVisit(visit);
+			this.visits.save(visit);
+		}
+		List<Visit> recent = this.visits.findRecentByPetIdIn(Arrays.asList(8, 42, 7), 2);
+		assertThat(recent).extracting(Visit::getPetId).containsExactly(7, 7, 8, 8);
+		assertThat(recent).extracting(Visit::getDate).containsExactly(LocalDate.of(2020, 1, 3),
+				LocalDate.of(2020, 1, 2), LocalDate.of(2013, 1, 3), LocalDate.of(2013, 1, 2));
+		assertThat(this.visits.findRecentByPetIdIn(Collections.emptyList(), 2)).isEmpty();
+	}
+
+	@Test
+	void shouldFindVisitsOfPetByDatePage() {
+		LocalDate from = LocalDate.of(1000, 1, 1);
+		LocalDate to = LocalDate.of(9999, 12, 31);
+		Slice<VisitSummary> first = this.visits.findSummariesByPetIdAndDateBetween(7, from, to, PageRequest.of(0, 1));
+		assertThat(first.getContent()).hasSize(1);
+		assertThat(first.hasNext()).isTrue();
+		Slice<VisitSummary> second = this.visits.findSummariesByPetIdAndDateBetween(7, from, to, PageRequest.of(1, 1));
+		assertThat(second.getContent()).hasSize(1);
+		assertThat(second.hasNext()).isFalse();
+		assertThat(first.getContent().get(0).getDate()).isAfterOrEqualTo(second.getContent().get(0).getDate());
+		LocalDate date = second.getContent().get(0).getDate();
+		assertThat(this.visits.findSummariesByPetIdAndDateBetween(7, date, date, PageRequest.of(0, 10)).getContent())
+				.extracting(VisitSummary::getDate).containsOnly(date);
+	}
+
+	@Test
+	void shouldFindVisitSearchResults() throws Exception {
+		List<VisitSearchResult> results = this.visits.findSearchResultsByIdIn(Arrays.asList(1, 2, 42));
+		assertThat(results).extracting(VisitSearchResult::getVisitId).containsOnly(1, 2);
+		VisitSearchResult first = results.stream().filter(result -> result.getVisitId() == 1).findFirst().get();
+		assertThat(first.getPetName()).isEqualTo("Samantha");
+		assertThat(first.getOwnerLastName()).isEqualTo("Coleman");
+	}
+
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Test class for {@link ConcurrencyLimitFilter}
+ */
+class ConcurrencyLimitFilterTests {
+
+	@Test
+	void requestsOverTheLimitAreRejected() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> blocking = executor.submit(() -> {
+				filter.doFilter(request("/owners"), new MockHttpServletResponse(), (request, response) -> {
+					started.countDown();
+					try {
+						release.await();
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				});
+				return null;
+			});
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+			MockHttpServletResponse rejected = new MockHttpServletResponse();
+			filter.doFilter(request("/owners"), rejected, new MockFilterChain());
+			assertThat(rejected.getStatus()).isEqualTo(503);
+
+			MockHttpServletResponse resource = new MockHttpServletResponse();
+			filter.doFilter(request("/resources/css/petclinic.css"), resource, new MockFilterChain());
+			assertThat(resource.getStatus()).isEqualTo(200);
+
+			release.countDown();
+			blocking.get(5, TimeUnit.SECONDS);
+			MockHttpServletResponse accepted = new MockHttpServletResponse();
+			filter.doFilter(request("/owners"), accepted, new MockFilterChain());
+			assertThat(accepted.getStatus()).isEqualTo(200);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void asyncRequestsHoldTheirTurnUntilTheyComplete() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+		MockHttpServletRequest async = request("/api/owners");
+		async.setAsyncSupported(true);
+		filter.doFilter(async, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+		assertThat(async.isAsyncStarted()).isTrue();
+
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		filter.doFilter(request("/owners"), rejected, new MockFilterChain());
+		assertThat(rejected.getStatus()).isEqualTo(503);
+
+		async.getAsyncContext().complete();
+		MockHttpServletResponse accepted = new MockHttpServletResponse();
+		filter.doFilter(request("/owners"), accepted, new MockFilterChain());
+		assertThat(accepted.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void limitCanBeChangedAtRuntime() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+		filter.setMaxConcurrentRequests(2);
+		MockHttpServletRequest first = startAsync(filter);
+		MockHttpServletRequest second = startAsync(filter);
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		filter.doFilter(request("/owners"), rejected, new MockFilterChain());
+		assertThat(rejected.getStatus()).isEqualTo(503);
+
+		// the requests over the new limit complete, and the next one waits for both
+		filter.setMaxConcurrentRequests(1);
+		first.getAsyncContext().complete();
+		rejected = new MockHttpServletResponse();
+		filter.doFilter(request("/owners"), rejected, new MockFilterChain());
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		second.getAsyncContext().complete();
+		MockHttpServletResponse accepted = new MockHttpServletResponse();
+		filter.doFilter(request("/owners"), accepted, new MockFilterChain());
+		assertThat(accepted.getStatus()).isEqualTo(200);
+		assertThat(filter.getMaxConcurrentRequests()).isEqualTo(1);
+	}
+
+	private static MockHttpServletRequest startAsync(ConcurrencyLimitFilter filter) throws Exception {
+		MockHttpServletRequest async = request("/api/owners");
+		async.setAsyncSupported(true);
+		filter.doFilter(async, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+		return async;
+	}
+
+	private static MockHttpServletRequest request(String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setServletPath(path);
+		return request;
+	}
+
+}
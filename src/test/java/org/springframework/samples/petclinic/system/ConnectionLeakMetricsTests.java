@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Test class for {@link ConnectionLeakMetrics}
+ */
+class ConnectionLeakMetricsTests {
+
+	@Test
+	void leakWarningsOfHikariAreCounted() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ConnectionLeakMetrics metrics = new ConnectionLeakMetrics(registry);
+		metrics.afterPropertiesSet();
+		try {
+			Logger leakTask = LoggerFactory.getLogger("com.zaxxer.hikari.pool.ProxyLeakTask");
+			Thread housekeeper = new Thread(() -> {
+				leakTask.warn("Connection leak detection triggered for {} on thread {}", "conn0", "main");
+				leakTask.info("Previously reported leaked connection {} on thread {} was returned", "conn0", "main");
+			}, "HikariPool-7 housekeeper");
+			housekeeper.start();
+			housekeeper.join();
+			LoggerFactory.getLogger(ConnectionLeakMetricsTests.class).warn("not a leak");
+		}
+		finally {
+			metrics.destroy();
+		}
+		assertThat(registry.get("hikaricp.connections.leaks").counter().getId().getTag("pool"))
+				.isEqualTo("HikariPool-7");
+		assertThat(registry.get("hikaricp.connections.leaks").counter().count()).isEqualTo(1);
+	}
+
+}
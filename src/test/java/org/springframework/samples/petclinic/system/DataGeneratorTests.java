@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link DataGenerator}
+ */
+@JdbcTest
+class DataGeneratorTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void testGenerate() {
+		int owners = count("owners");
+		int vets = count("vets");
+		DataGeneratorProperties properties = new DataGeneratorProperties();
+		properties.setOwners(500);
+		properties.setVets(20);
+		properties.setBatchSize(100);
+		new DataGenerator(this.jdbc, properties).generate();
+
+		assertThat(count("owners")).isEqualTo(owners + 500);
+		assertThat(count("vets")).isEqualTo(vets + 20);
+		assertThat(count("pets")).isGreaterThan(500);
+		assertThat(count("visits")).isGreaterThan(500);
+
+		// rows added afterwards still get fresh ids
+		this.jdbc.update("INSERT INTO owners (first_name, last_name) VALUES ('Sam', 'Schultz')");
+		assertThat(count("owners")).isEqualTo(owners + 501);
+		Integer maxId = this.jdbc.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+		assertThat(this.jdbc.queryForObject("SELECT NEXT VALUE FOR visit_seq", Integer.class)).isGreaterThan(maxId);
+	}
+
+	private int count(String table) {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+}
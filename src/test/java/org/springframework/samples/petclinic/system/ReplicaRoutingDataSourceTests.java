@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class for {@link ReplicaRoutingDataSource}
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private ReplicaRoutingDataSource dataSource;
+
+	@AfterEach
+	void close() throws Exception {
+		ReplicaRoutingDataSource.setReadFromPrimary(false);
+		this.dataSource.destroy();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToReplicas() {
+		this.dataSource = new ReplicaRoutingDataSource(database("primary"),
+				Arrays.asList(database("replica1"), database("replica2")), Duration.ofHours(1));
+		assertThat(read(true)).isIn("replica1", "replica2");
+		assertThat(read(true)).isNotEqualTo(read(true));
+		assertThat(read(false)).isEqualTo("primary");
+	}
+
+	@Test
+	void readsArePinnedToThePrimary() {
+		this.dataSource = new ReplicaRoutingDataSource(database("primary"),
+				Collections.singletonList(database("replica1")), Duration.ofHours(1));
+		ReplicaRoutingDataSource.setReadFromPrimary(true);
+		assertThat(read(true)).isEqualTo("primary");
+		ReplicaRoutingDataSource.setReadFromPrimary(false);
+		assertThat(read(true)).isEqualTo("replica1");
+	}
+
+	@Test
+	void unavailableReplicasAreSkipped() {
+		DataSource missing = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+		this.dataSource = new ReplicaRoutingDataSource(database("primary"),
+				Arrays.asList(missing, database("replica1")), Duration.ofHours(1));
+		assertThat(read(true)).isEqualTo("replica1");
+		assertThat(read(true)).isEqualTo("replica1");
+	}
+
+	@Test
+	void readsFallBackToThePrimary() {
+		DataSource missing = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+		this.dataSource = new ReplicaRoutingDataSource(database("primary"), Collections.singletonList(missing),
+				Duration.ofHours(1));
+		assertThat(read(true)).isEqualTo("primary");
+	}
+
+	private String read(boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+		transaction.setReadOnly(readOnly);
+		return transaction.execute(
+				status -> new JdbcTemplate(this.dataSource).queryForObject("SELECT name FROM server", String.class));
+	}
+
+	private static DataSource database(String name) {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE IF NOT EXISTS server (name VARCHAR(30))");
+		jdbc.execute("DELETE FROM server");
+		jdbc.update("INSERT INTO server VALUES (?)", name);
+		return dataSource;
+	}
+
+}
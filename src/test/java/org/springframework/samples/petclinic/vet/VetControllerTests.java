@@ -17,6 +17,8 @@
 package org.springframework.samples.petclinic.vet;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -31,6 +33,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.FragmentCache;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
@@ -46,6 +49,9 @@ class VetControllerTests {
 	@MockBean
 	private VetRepository vets;
 
+	@MockBean
+	private FragmentCache fragments;
+
 	@BeforeEach
 	void setup() {
 		Vet james = new Vet();
@@ -61,12 +67,30 @@ class VetControllerTests {
 		radiology.setName("radiology");
 		helen.addSpecialty(radiology);
 		given(this.vets.findAll()).willReturn(Lists.newArrayList(james, helen));
+		given(this.vets.findAllSummaries()).willReturn(Lists.newArrayList(
+				new VetSummary(1, 0, "James", "Carter", null), new VetSummary(2, 0, "Helen", "Leary", "radiology")));
 	}
 
 	@Test
 	void testShowVetListHtml() throws Exception {
-		mockMvc.perform(get("/vets.html")).andExpect(status().isOk()).andExpect(model().attributeExists("vets"))
+		mockMvc.perform(get("/vets.html")).andExpect(status().isOk()).andExpect(model().attributeExists("vetTable"))
 				.andExpect(view().name("vets/vetList"));
+		verify(this.vets, never()).findAll();
+	}
+
+	@Test
+	void testShowVetListHtmlNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/vets.html")).andExpect(status().isOk()).andReturn().getResponse()
+				.getHeader("ETag");
+		mockMvc.perform(get("/vets.html").header("If-None-Match", etag)).andExpect(status().isNotModified());
+	}
+
+	@Test
+	void testShowResourcesVetListNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
 	}
 
 	@Test
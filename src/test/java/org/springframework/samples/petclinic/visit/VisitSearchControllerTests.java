@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Test class for {@link VisitSearchController}
+ */
+@WebMvcTest(VisitSearchController.class)
+class VisitSearchControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private VisitSearchIndex index;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@Test
+	void testSearchReturnsVisitsByRelevance() throws Exception {
+		given(this.index.search(eq("rabies"), any(Pageable.class))).willReturn(new SliceImpl<>(
+				Arrays.asList(new VisitSearchIndex.Hit(3, 2.5f), new VisitSearchIndex.Hit(1, 1.5f),
+						new VisitSearchIndex.Hit(9, 1.0f)),
+				PageRequest.of(0, 3), true));
+		given(this.visits.findSearchResultsByIdIn(Arrays.asList(3, 1, 9))).willReturn(Arrays.asList(
+				new VisitSearchResult(1, LocalDate.of(2013, 1, 1), "rabies shot", 7, "Samantha", 6, "Jean", "Coleman"),
+				new VisitSearchResult(3, LocalDate.of(2013, 1, 3), "rabies booster", 8, "Max", 6, "Jean",
+						"Coleman")));
+		MvcResult result = this.mockMvc.perform(get("/api/visits/search?q=rabies&size=3"))
+				.andExpect(request().asyncStarted()).andReturn();
+		// visit 9 was deleted since it was indexed
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2)).andExpect(jsonPath("$[0].visitId").value(3))
+				.andExpect(jsonPath("$[0].petName").value("Max")).andExpect(jsonPath("$[0].score").value(2.5))
+				.andExpect(jsonPath("$[1].ownerLastName").value("Coleman"))
+				.andExpect(header().string("Link", containsString("page=1")));
+	}
+
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		TaskExecutor taskExecutor() {
+			return new SyncTaskExecutor();
+		}
+
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for {@link VisitSearchIndex}
+ */
+class VisitSearchIndexTests {
+
+	private VisitRepository visits;
+
+	private static final String DATABASE = "jdbc:mysql://localhost/petclinic";
+
+	private VisitSearchIndex index;
+
+	@TempDir
+	Path directory;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.visits = mock(VisitRepository.class);
+		this.index = open(DATABASE);
+		this.index.onVisitSaved(new VisitSaved(1, "rabies shot"));
+		this.index.onVisitSaved(new VisitSaved(2, "neutered"));
+		this.index.onVisitSaved(new VisitSaved(3, "rabies shots and a rabies booster"));
+		this.index.onVisitSaved(new VisitSaved(4, "spayed"));
+	}
+
+	@AfterEach
+	void close() throws Exception {
+		this.index.destroy();
+	}
+
+	private VisitSearchIndex open(String database) throws Exception {
+		VisitSearchProperties properties = new VisitSearchProperties();
+		properties.setDirectory(this.directory);
+		return new VisitSearchIndex(this.visits, mock(EntityManager.class), mock(PlatformTransactionManager.class),
+				properties, database);
+	}
+
+	@Test
+	void testSavedVisitsAreSearchableAfterRefresh() {
+		assertThat(this.index.search("rabies", PageRequest.of(0, 10))).isEmpty();
+		this.index.refresh();
+		assertThat(this.index.search("rabies", PageRequest.of(0, 10))).extracting(VisitSearchIndex.Hit::getVisitId)
+				.containsExactly(3, 1);
+		// matched by stem, all words required
+		assertThat(this.index.search("Shots", PageRequest.of(0, 10))).hasSize(2);
+		assertThat(this.index.search("rabies booster", PageRequest.of(0, 10)))
+				.extracting(VisitSearchIndex.Hit::getVisitId).containsExactly(3);
+	}
+
+	@Test
+	void testSavedVisitReplacesItsDocument() {
+		this.index.onVisitSaved(new VisitSaved(2, "rabies shot after surgery"));
+		this.index.refresh();
+		assertThat(this.index.search("neutered", PageRequest.of(0, 10))).isEmpty();
+		assertThat(this.index.search("rabies", PageRequest.of(0, 10))).hasSize(3);
+		assertThat(this.index.size()).isEqualTo(4);
+	}
+
+	@Test
+	void testSearchPages() {
+		this.index.refresh();
+		Slice<VisitSearchIndex.Hit> first = this.index.search("rabies", PageRequest.of(0, 1));
+		assertThat(first).extracting(VisitSearchIndex.Hit::getVisitId).containsExactly(3);
+		assertThat(first.hasNext()).isTrue();
+		Slice<VisitSearchIndex.Hit> second = this.index.search("rabies", PageRequest.of(1, 1));
+		assertThat(second).extracting(VisitSearchIndex.Hit::getVisitId).containsExactly(1);
+		assertThat(second.hasNext()).isFalse();
+	}
+
+	@Test
+	void testSearchesSeePreviousContentDuringRebuild() {
+		this.index.refresh();
+		Visit checkup = new Visit();
+		checkup.setId(7);
+		checkup.setDescription("checkup");
+		given(this.visits.streamAll()).willAnswer(invocation -> {
+			// a scheduled refresh in the middle of the rebuild
+			this.index.refresh();
+			assertThat(this.index.search("rabies", PageRequest.of(0, 10))).hasSize(2);
+			return Stream.of(checkup);
+		});
+		this.index.rebuild();
+		assertThat(this.index.search("rabies", PageRequest.of(0, 10))).isEmpty();
+		assertThat(this.index.size()).isEqualTo(1);
+	}
+
+	@Test
+	void testRebuild() {
+		Visit checkup = new Visit();
+		checkup.setId(7);
+		checkup.setDescription("checkup");
+		given(this.visits.streamAll()).willReturn(Stream.of(checkup));
+		assertThat(this.index.rebuild()).isEqualTo(1);
+		assertThat(this.index.search("rabies", PageRequest.of(0, 10))).isEmpty();
+		assertThat(this.index.search("checkup", PageRequest.of(0, 10))).extracting(VisitSearchIndex.Hit::getVisitId)
+				.containsExactly(7);
+	}
+
+	@Test
+	void testIndexIsOnlyRebuiltForAnotherDatabase() throws Exception {
+		given(this.visits.streamAll()).willReturn(Stream.empty());
+		assertThat(this.index.isRebuildOnStart()).isTrue();
+		this.index.rebuild();
+		this.index.destroy();
+		this.index = open(DATABASE);
+		assertThat(this.index.isRebuildOnStart()).isFalse();
+		this.index.destroy();
+		this.index = open("jdbc:mysql://staging/petclinic");
+		assertThat(this.index.isRebuildOnStart()).isTrue();
+	}
+
+	@Test
+	void testDirectoryIsRequiredUnlessRebuiltOnStart() throws Exception {
+		VisitSearchProperties properties = new VisitSearchProperties();
+		assertThatIllegalStateException().isThrownBy(() -> new VisitSearchIndex(this.visits,
+				mock(EntityManager.class), mock(PlatformTransactionManager.class), properties, DATABASE));
+		properties.setRebuildOnStart(true);
+		new VisitSearchIndex(this.visits, mock(EntityManager.class), mock(PlatformTransactionManager.class), properties,
+				DATABASE).destroy();
+	}
+
+}